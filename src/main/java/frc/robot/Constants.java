@@ -7,6 +7,7 @@ package frc.robot;
 import com.pathplanner.lib.config.PIDConstants;
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Distance;
 import edu.wpi.first.units.measure.LinearVelocity;
@@ -177,6 +178,8 @@ public final class Constants {
         public static final double kScaleSpeedMin = 0.3;
         // Hold time on motor brakes when disabled
         public static final double WHEEL_LOCK_TIME = 10; // seconds
+        // Period of the odometry thread when running threaded odometry, 200Hz.
+        public static final double kOdometryPeriodSeconds = 0.005;
 
         // Drive to pose speeds
         public static final double kDriveToReef = .7;
@@ -197,6 +200,20 @@ public final class Constants {
         public static final LinearVelocity kPathfindEndGoalVelocity = MetersPerSecond.of(10);
         public static final double kTranslationTolerance = .1;
         public static final double kRotationTolerance = 1; // Degrees
+        // ProfileToPose final alignment motion profile limits
+        public static final TrapezoidProfile.Constraints kAlignDriveConstraints =
+                new TrapezoidProfile.Constraints(0.7, 1); // m/s, m/s^2
+        public static final TrapezoidProfile.Constraints kAlignThetaConstraints =
+                new TrapezoidProfile.Constraints(Units.degreesToRadians(720.0), 10.0); // rad/s, rad/s^2
+        // Period of the ProfileToPose alignment loop, the robot loop so alignment runs on the main thread. A shorter
+        // period passed to ProfileToPose runs that alignment on its own Notifier.
+        public static final double kAlignPeriodSeconds = 0.02;
+        // Path cache start cells, the same size as the navgrid nodes.
+        public static final double kPathCacheCellSizeMeters = 0.3;
+        // Longest the path cache waits for the background planner before giving up on a path.
+        public static final double kPathCachePlanTimeoutSeconds = 0.5;
+        // Distance the robot moves before the path to the selected reef pose is planned again.
+        public static final double kPlanAheadDistanceMeters = 0.3;
 
         // Pathplanner holonomic controller
         public static final PIDConstants kPPTranslationPID = new PIDConstants(5.86, 0.0, 0.01);
@@ -360,6 +377,30 @@ public final class Constants {
     }
 
     public static final class VisionConstants {
+        // Period each camera ingest thread polls PhotonVision for new results.
+        public static final double kIngestPeriodSeconds = 0.005;
+        // Estimates buffered per camera between main loop drains.
+        public static final int kMeasurementQueueCapacity = 32;
+        // Window frame rates and average latency are computed over.
+        public static final double kMetricsWindowSeconds = 1.0;
+        // Average capture-to-fusion latency, and age of the newest fused frame, that raises the camera latency alert.
+        public static final double kLatencyAlertThresholdSeconds = 0.1;
+
+        // Outlier rejection gate applied before fusing an estimate.
+        // Chi-squared value for 3 degrees of freedom at 99%.
+        public static final double kMaxMahalanobisDistanceSquared = 11.34;
+        // Assumed odometry uncertainty, the pose estimator does not expose its covariance.
+        public static final double kOdometryStdDevXY = 0.15;
+        public static final double kOdometryStdDevTheta = Units.degreesToRadians(5);
+        // Consecutive Mahalanobis rejections before vision is trusted over odometry again.
+        public static final int kMaxConsecutiveMahalanobisRejections = 10;
+        // Distance an estimate may sit outside the field walls.
+        public static final double kFieldBorderMargin = 0.5;
+        // Maximum height of an estimate off the carpet.
+        public static final double kMaxZError = 0.75;
+        // Robot yaw rate above which estimates are too blurred to trust.
+        public static final double kMaxYawRateRadiansPerSecond = Units.degreesToRadians(540);
+
         // Coordinate system, makes x, y, and z easy.
         // https://docs.wpilib.org/en/stable/docs/software/basic-programming/coordinate-system.html
         // Reef Camera Constants
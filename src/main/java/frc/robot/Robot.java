@@ -12,6 +12,10 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import maniplib.LoopProfiler;
+import maniplib.Telemetry;
+import maniplib.motors.ManipMotor;
+import maniplib.utils.AllianceFlipUtil;
 import org.ironmaple.simulation.SimulatedArena;
 
 /**
@@ -28,6 +32,9 @@ public class Robot extends TimedRobot {
 
     private Timer disabledTimer;
 
+    private final LoopProfiler.Entry motorsProfile = LoopProfiler.getEntry("ManipMotor.updateAll()");
+    private final LoopProfiler.Entry schedulerProfile = LoopProfiler.getEntry("CommandScheduler.run()");
+
     public Robot() {
         instance = this;
     }
@@ -42,8 +49,13 @@ public class Robot extends TimedRobot {
     @Override
     public void robotInit() {
         // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
-        // autonomous chooser on the dashboard.
+        // autonomous chooser on the dashboard. Motor config changes made while the subsystems are created are
+        // collected and applied together, once per motor.
+        ManipMotor.beginConfig();
         m_robotContainer = new RobotContainer();
+        ManipMotor.commitConfig();
+        // Must come after the button bindings in RobotContainer.
+        LoopProfiler.startCommandProfiling();
 
         // Create a timer to disable motor brake a few seconds after disable.  This will let the robot stop
         // immediately when disabled, but then also let it be pushed more
@@ -64,11 +76,22 @@ public class Robot extends TimedRobot {
      */
     @Override
     public void robotPeriodic() {
+        LoopProfiler.startLoop(getPeriod());
+        // Read the alliance once per loop, everything else uses the cached value.
+        AllianceFlipUtil.refresh();
+        // Retry motor commands that failed to send last loop, before the scheduler sends new ones.
+        motorsProfile.start();
+        ManipMotor.updateAll();
+        motorsProfile.stop();
         // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
         // commands, running already-scheduled commands, removing finished or interrupted commands,
         // and running subsystem periodic() methods.  This must be called from the robot's periodic
         // block in order for anything in the Command-based framework to work.
+        schedulerProfile.start();
         CommandScheduler.getInstance().run();
+        schedulerProfile.stop();
+        Telemetry.flush();
+        LoopProfiler.endLoop();
     }
 
     /**
@@ -78,6 +78,8 @@ public class RobotContainer {
     public RobotContainer() {
         setupAutonomous();
         configureBindings();
+        // The reef pose is picked well before driving to it, plan the path while the driver chooses.
+        drivebase.planAheadTo(poseSelector::flippedReefPose);
         DriverStation.silenceJoystickConnectionWarning(true);
 
     }
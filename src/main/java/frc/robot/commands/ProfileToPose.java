@@ -14,20 +14,18 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
-import maniplib.utils.GeomUtil;
 
 public class ProfileToPose extends Command {
-    private static final double drivekP = 0.9;
-    private static final double drivekD = 0.01;
-    private static final double thetakP = 4.0;
-    private static final double thetakD = 0.0;
-    private static final double driveMaxVelocity = 0.7;
-    private static final double driveMaxAcceleration = 1;
-    private static final double thetaMaxVelocity = Units.degreesToRadians(720.0);
-    private static final double thetaMaxAcceleration = 10.0;
+    static final double drivekP = 0.9;
+    static final double drivekD = 0.01;
+    static final double thetakP = 4.0;
+    static final double thetakD = 0.0;
     public static final double driveTolerance = 0.01;
     public static final double thetaTolerance = Units.degreesToRadians(1.0);
     private static final double ffMinRadius = 0.02;
@@ -37,64 +35,172 @@ public class ProfileToPose extends Command {
     private Supplier<Pose2d> target;
     private final SwerveRequest.ApplyRobotSpeeds drive = new SwerveRequest.ApplyRobotSpeeds().withDriveRequestType(DriveRequestType.Velocity);
 
-    private static final ProfiledPIDController driveController = new ProfiledPIDController(drivekP, 0, drivekD,
-        new TrapezoidProfile.Constraints(driveMaxVelocity, driveMaxAcceleration));
-    private static final ProfiledPIDController thetaController = new ProfiledPIDController(thetakP, 0, thetakD,
-        new TrapezoidProfile.Constraints(thetaMaxVelocity, thetaMaxAcceleration));
-    private Translation2d lastSetpointTranslation = Translation2d.kZero;
-    private double driveErrorAbs = 0.0;
-    private double thetaErrorAbs = 0.0;
+    /**
+     * Controllers are per instance so several alignment commands can be built up front and reused without sharing
+     * profile state.
+     */
+    private final ProfiledPIDController driveController;
+    private final ProfiledPIDController thetaController;
+    /**
+     * Translation of the last drive profile setpoint, kept as primitives so execute does not allocate.
+     */
+    private double lastSetpointX = 0.0;
+    private double lastSetpointY = 0.0;
+    /**
+     * Speeds handed to the drivetrain, reused every loop.
+     */
+    private final ChassisSpeeds robotRelativeSpeeds = new ChassisSpeeds();
+    /**
+     * Runs {@link ProfileToPose#update()} while scheduled when the loop period is shorter than the robot loop, null
+     * otherwise. The errors and goal flag are volatile since the notifier writes them and the scheduler reads them.
+     */
+    private Notifier notifier = null;
+    private final double periodSeconds;
+    private final boolean runOnNotifier;
+    private volatile double driveErrorAbs = 0.0;
+    private volatile double thetaErrorAbs = 0.0;
+    private volatile boolean controllersAtGoal = false;
+    /**
+     * Target read from the supplier by the main thread every loop, so the notifier never calls the supplier.
+     */
+    private volatile Pose2d targetSnapshot = null;
     private boolean running = false;
-    private Supplier<Pose2d> robot = () -> swerve.getPose();
+    private Supplier<Pose2d> robot = () -> swerve.getPoseSnapshot();
 
     private Supplier<Translation2d> linearFF = () -> Translation2d.kZero;
     private DoubleSupplier omegaFF = () -> 0.0;
 
     public ProfileToPose(SwerveSubsystem swerve, Supplier<Pose2d> target) {
+        this(swerve, target,
+            Constants.DrivebaseConstants.kAlignDriveConstraints,
+            Constants.DrivebaseConstants.kAlignThetaConstraints,
+            Constants.DrivebaseConstants.kAlignPeriodSeconds);
+    }
+
+    /**
+     * Drive to a pose with custom motion profile limits.
+     *
+     * @param swerve            Drivetrain to align.
+     * @param target            Pose to align to, read every loop.
+     * @param driveConstraints  Limits on the distance to the target, in meters.
+     * @param thetaConstraints  Limits on the heading, in radians.
+     */
+    public ProfileToPose(SwerveSubsystem swerve, Supplier<Pose2d> target,
+                         TrapezoidProfile.Constraints driveConstraints,
+                         TrapezoidProfile.Constraints thetaConstraints) {
+        this(swerve, target, driveConstraints, thetaConstraints, Constants.DrivebaseConstants.kAlignPeriodSeconds);
+    }
+
+    /**
+     * Drive to a pose with custom motion profile limits and loop rate. Periods shorter than the robot loop run the
+     * controllers on their own {@link Notifier}, which takes over drive commands from the scheduler until the command
+     * ends.
+     *
+     * @param swerve            Drivetrain to align.
+     * @param target            Pose to align to, read every robot loop on the main thread.
+     * @param driveConstraints  Limits on the distance to the target, in meters.
+     * @param thetaConstraints  Limits on the heading, in radians.
+     * @param periodSeconds     Period of the alignment loop.
+     */
+    public ProfileToPose(SwerveSubsystem swerve, Supplier<Pose2d> target,
+                         TrapezoidProfile.Constraints driveConstraints,
+                         TrapezoidProfile.Constraints thetaConstraints,
+                         double periodSeconds) {
+        this(target, driveConstraints, thetaConstraints, periodSeconds);
         this.swerve = swerve;
+        addRequirements(swerve);
+    }
+
+    /**
+     * Controller core without a drivetrain, stepped directly through {@link ProfileToPose#reset} and
+     * {@link ProfileToPose#step}. Not meant to be scheduled.
+     */
+    ProfileToPose(Supplier<Pose2d> target,
+                  TrapezoidProfile.Constraints driveConstraints,
+                  TrapezoidProfile.Constraints thetaConstraints,
+                  double periodSeconds) {
         this.target = target;
 
         SmartDashboard.putString("cons", target.get().toString()); // Diagnostic
+        // The controllers step their profiles by the period, so it has to match the rate they are called at.
+        driveController = new ProfiledPIDController(drivekP, 0, drivekD, driveConstraints, periodSeconds);
+        thetaController = new ProfiledPIDController(thetakP, 0, thetakD, thetaConstraints, periodSeconds);
         thetaController.enableContinuousInput(-Math.PI, Math.PI);
-
-        addRequirements(swerve);
+        this.periodSeconds = periodSeconds;
+        runOnNotifier = periodSeconds < TimedRobot.kDefaultPeriod;
     }
 
     @Override
     public void initialize() {
-        SmartDashboard.putString("init", target.get().toString()); // Diagnostic
-        Pose2d currentPose = robot.get();
-        ChassisSpeeds fieldVelocity = swerve.getRobotVelocity();
-        Translation2d linearFieldVelocity =
-            new Translation2d(fieldVelocity.vxMetersPerSecond, fieldVelocity.vyMetersPerSecond);
-        driveController.reset(
-            currentPose.getTranslation().getDistance(target.get().getTranslation()),
-            Math.min(
-                0.0,
-                -linearFieldVelocity
-                    .rotateBy(
-                        target
-                            .get()
-                            .getTranslation()
-                            .minus(currentPose.getTranslation())
-                            .getAngle()
-                            .unaryMinus())
-                    .getX()));
+        Pose2d targetPose = target.get();
+        targetSnapshot = targetPose;
+        SmartDashboard.putString("init", targetPose.toString()); // Diagnostic
+        reset(robot.get(), targetPose, swerve.getRobotVelocity());
+        if (runOnNotifier) {
+            // Created per run rather than per instance, deferred commands build a new ProfileToPose every time.
+            notifier = new Notifier(this::update);
+            notifier.setName("ProfileToPose");
+            swerve.setDriveHandedOff(true);
+            notifier.startPeriodic(periodSeconds);
+        }
+    }
+
+    /**
+     * Reset the profiles to start from the current pose and velocity.
+     *
+     * @param currentPose   Pose of the robot.
+     * @param targetPose    Pose to align to.
+     * @param fieldVelocity Velocity of the robot.
+     */
+    void reset(Pose2d currentPose, Pose2d targetPose, ChassisSpeeds fieldVelocity) {
+        double toTargetX = targetPose.getX() - currentPose.getX();
+        double toTargetY = targetPose.getY() - currentPose.getY();
+        // Velocity along the direction to the target, the profile starts from it if moving towards the target.
+        double toTargetAngle = Math.atan2(toTargetY, toTargetX);
+        double velocityToTarget = fieldVelocity.vxMetersPerSecond * Math.cos(-toTargetAngle)
+            - fieldVelocity.vyMetersPerSecond * Math.sin(-toTargetAngle);
+        driveController.reset(Math.hypot(toTargetX, toTargetY), Math.min(0.0, -velocityToTarget));
         thetaController.reset(
             currentPose.getRotation().getRadians(), fieldVelocity.omegaRadiansPerSecond);
-        lastSetpointTranslation = currentPose.getTranslation();
+        lastSetpointX = currentPose.getX();
+        lastSetpointY = currentPose.getY();
+        controllersAtGoal = false;
     }
 
     @Override
     public void execute() {
         running = true;
+        targetSnapshot = target.get();
+        if (notifier == null) {
+            update();
+        }
+    }
 
-        // Get current pose and target pose
-        Pose2d currentPose = robot.get();
-        Pose2d targetPose = target.get();
+    /**
+     * Step the controllers and command the drivetrain. Runs from {@link ProfileToPose#execute()} or on the notifier.
+     */
+    private void update() {
+        step(robot.get(), targetSnapshot, robotRelativeSpeeds);
+        swerve.drive(robotRelativeSpeeds);
+    }
+
+    /**
+     * Step the controllers once.
+     *
+     * @param currentPose Pose of the robot.
+     * @param targetPose  Pose to align to.
+     * @param output      Robot relative speeds to write the result to.
+     */
+    void step(Pose2d currentPose, Pose2d targetPose, ChassisSpeeds output) {
+        double currentX = currentPose.getX();
+        double currentY = currentPose.getY();
+        double currentTheta = currentPose.getRotation().getRadians();
+        double targetX = targetPose.getX();
+        double targetY = targetPose.getY();
+        double targetTheta = targetPose.getRotation().getRadians();
 
         // Calculate drive speed
-        double currentDistance = currentPose.getTranslation().getDistance(targetPose.getTranslation());
+        double currentDistance = Math.hypot(targetX - currentX, targetY - currentY);
         double ffScaler =
             MathUtil.clamp(
                 (currentDistance - ffMinRadius) / (ffMaxRadius - ffMinRadius),
@@ -102,63 +208,79 @@ public class ProfileToPose extends Command {
                 1.0);
         driveErrorAbs = currentDistance;
         driveController.reset(
-            lastSetpointTranslation.getDistance(targetPose.getTranslation()),
+            Math.hypot(targetX - lastSetpointX, targetY - lastSetpointY),
             driveController.getSetpoint().velocity);
         double driveVelocityScalar =
             driveController.getSetpoint().velocity * ffScaler
                 + driveController.calculate(driveErrorAbs, 0.0);
         if (currentDistance < driveController.getPositionTolerance()) driveVelocityScalar = 0.0;
-        lastSetpointTranslation =
-            new Pose2d(
-                    targetPose.getTranslation(),
-                    new Rotation2d(
-                        Math.atan2(
-                            currentPose.getTranslation().getY() - targetPose.getTranslation().getY(),
-                            currentPose.getTranslation().getX() - targetPose.getTranslation().getX())))
-                .transformBy(GeomUtil.toTransform2d(driveController.getSetpoint().position, 0.0))
-                .getTranslation();
+
+        // Direction from the target to the robot, shared by the next setpoint and the drive velocity
+        double heading = Math.atan2(currentY - targetY, currentX - targetX);
+        double headingCos = Math.cos(heading);
+        double headingSin = Math.sin(heading);
+        double setpointDistance = driveController.getSetpoint().position;
+        lastSetpointX = targetX + setpointDistance * headingCos;
+        lastSetpointY = targetY + setpointDistance * headingSin;
 
         // Calculate theta speed
         double thetaVelocity =
             thetaController.getSetpoint().velocity * ffScaler
-                + thetaController.calculate(
-                    currentPose.getRotation().getRadians(), targetPose.getRotation().getRadians());
-        thetaErrorAbs =
-            Math.abs(currentPose.getRotation().minus(targetPose.getRotation()).getRadians());
+                + thetaController.calculate(currentTheta, targetTheta);
+        thetaErrorAbs = Math.abs(MathUtil.angleModulus(currentTheta - targetTheta));
         if (thetaErrorAbs < thetaController.getPositionTolerance()) thetaVelocity = 0.0;
 
-        Translation2d driveVelocity =
-            new Pose2d(
-                    Translation2d.kZero,
-                    new Rotation2d(
-                        Math.atan2(
-                            currentPose.getTranslation().getY() - targetPose.getTranslation().getY(),
-                            currentPose.getTranslation().getX() - targetPose.getTranslation().getX())))
-                .transformBy(GeomUtil.toTransform2d(driveVelocityScalar, 0.0))
-                .getTranslation();
+        double driveVelocityX = driveVelocityScalar * headingCos;
+        double driveVelocityY = driveVelocityScalar * headingSin;
 
         // Scale feedback velocities by input ff
-        final double linearS = linearFF.get().getNorm() * 3.0;
-        final double thetaS = Math.abs(omegaFF.getAsDouble()) * 3.0;
-        driveVelocity =
-            driveVelocity.interpolate(linearFF.get().times(4.69), linearS);
+        final Translation2d linearFeedforward = linearFF.get();
+        final double omegaFeedforward = omegaFF.getAsDouble();
+        final double linearS = linearFeedforward.getNorm() * 3.0;
+        final double thetaS = Math.abs(omegaFeedforward) * 3.0;
+        driveVelocityX = MathUtil.interpolate(driveVelocityX, linearFeedforward.getX() * 4.69, linearS);
+        driveVelocityY = MathUtil.interpolate(driveVelocityY, linearFeedforward.getY() * 4.69, linearS);
         thetaVelocity =
             MathUtil.interpolate(
-                thetaVelocity, omegaFF.getAsDouble() * 4.69/Math.hypot(10.75, 10.75), thetaS);
+                thetaVelocity, omegaFeedforward * 4.69/Math.hypot(10.75, 10.75), thetaS);
 
-        // Command speeds (ROBOT RELATIVE)
-        swerve.drive(ChassisSpeeds.fromFieldRelativeSpeeds(
-                driveVelocity.getX(), driveVelocity.getY(), thetaVelocity, currentPose.getRotation()));
+        // Command speeds (ROBOT RELATIVE), rotate the field relative velocity by the inverse robot heading
+        double robotCos = Math.cos(-currentTheta);
+        double robotSin = Math.sin(-currentTheta);
+        output.vxMetersPerSecond = driveVelocityX * robotCos - driveVelocityY * robotSin;
+        output.vyMetersPerSecond = driveVelocityX * robotSin + driveVelocityY * robotCos;
+        output.omegaRadiansPerSecond = thetaVelocity;
+        controllersAtGoal = driveController.atGoal() && thetaController.atGoal();
     }
 
     @Override
     public void end(boolean interrupted) {
+        if (notifier != null) {
+            // Blocks until a running update returns, so nothing drives after the wheels are locked.
+            notifier.close();
+            notifier = null;
+            swerve.setDriveHandedOff(false);
+        }
         swerve.lock();
         running = false;
     }
 
     public boolean atGoal() {
-        return running && driveController.atGoal() && thetaController.atGoal();
+        return running && controllersAtGoal;
+    }
+
+    /**
+     * @return Distance from the robot to the target at the last step.
+     */
+    double getDriveError() {
+        return driveErrorAbs;
+    }
+
+    /**
+     * @return Absolute heading error at the last step, in radians.
+     */
+    double getThetaError() {
+        return thetaErrorAbs;
     }
 
     public boolean withinTolerance(double driveTolerance, Rotation2d thetaTolerance) {
@@ -6,12 +6,12 @@ import edu.wpi.first.wpilibj.AddressableLEDBufferView;
 import edu.wpi.first.wpilibj.LEDPattern;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import maniplib.ProfiledSubsystem;
 
 import static edu.wpi.first.units.Units.MetersPerSecond;
 
-public class AddressableLEDSubsystem extends SubsystemBase {
+public class AddressableLEDSubsystem extends ProfiledSubsystem {
 
     private final AddressableLED led = new AddressableLED(9);
     private final AddressableLEDBuffer buffer = new AddressableLEDBuffer(320);
@@ -31,7 +31,7 @@ public class AddressableLEDSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         elevatorPattern.applyTo(elevatorGlow);
         underPattern.applyTo(underGlow);
         led.setData(buffer);
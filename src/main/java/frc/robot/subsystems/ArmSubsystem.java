@@ -2,19 +2,24 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants;
 import frc.robot.Constants.ArmConstants;
 import maniplib.ManipArm;
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.motors.ManipSparkMax;
 
 import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Rotations;
 
-public class ArmSubsystem extends SubsystemBase {
+public class ArmSubsystem extends ProfiledSubsystem {
+    private final Telemetry.NumberField rawTelemetry = Telemetry.number("Arm Raw Raw", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField absRawTelemetry = Telemetry.number("Arm ABS Raw", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField absAdjustedTelemetry =
+            Telemetry.number("Arm ABS Adjusted", ManipTelemetry.HIGH);
 
     private final ManipSparkMax armMotor = new ManipSparkMax(12);
     private final ManipArm arm = new ManipArm(armMotor, Constants.ArmConstants.armConfig);
@@ -29,10 +34,11 @@ public class ArmSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
-        SmartDashboard.putNumber("Arm Raw Raw", -armABS.get());
-        SmartDashboard.putNumber("Arm ABS Raw", Degrees.convertFrom(-armABS.get(), Rotations));
-        SmartDashboard.putNumber("Arm ABS Adjusted", Degrees.convertFrom(-armABS.get(), Rotations) -
+    protected void profiledPeriodic() {
+        double absRaw = -armABS.get();
+        rawTelemetry.set(absRaw);
+        absRawTelemetry.set(Degrees.convertFrom(absRaw, Rotations));
+        absAdjustedTelemetry.set(Degrees.convertFrom(absRaw, Rotations) -
                 ArmConstants.armConfig.kArmOffsetToHorizantalZero.in(Degrees));
     }
 
@@ -116,7 +122,7 @@ public class ArmSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Update the arm mechanism simulation.
         Constants.kArmMech.setAngle(arm.getMechAngle());
     }
@@ -7,13 +7,17 @@ package frc.robot.subsystems;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.SparkMax;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants;
-
-public class ClimbSubsystem extends SubsystemBase {
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
+
+public class ClimbSubsystem extends ProfiledSubsystem {
+    private final Telemetry.NumberField encoderTelemetry = Telemetry.number("Climb Encoder", ManipTelemetry.HIGH);
+    private final Telemetry.BooleanField bottomLimitTelemetry =
+            Telemetry.bool("Climb Bottom Limit", ManipTelemetry.LOW);
     /**
      * Creates a new ClimbSubsystem.
      */
@@ -28,9 +32,9 @@ public class ClimbSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
-        SmartDashboard.putNumber("Climb Encoder", climbMotor.getEncoder().getPosition());
-        SmartDashboard.putBoolean("Climb Bottom Limit", !climbBottomLimit.get());
+    protected void profiledPeriodic() {
+        encoderTelemetry.set(climbMotor.getEncoder().getPosition());
+        bottomLimitTelemetry.set(!climbBottomLimit.get());
     }
 
     public Command climbUp() {
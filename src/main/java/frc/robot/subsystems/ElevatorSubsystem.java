@@ -2,18 +2,26 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants;
 import maniplib.ManipElevator;
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.motors.ManipSparkMax;
 
 import static edu.wpi.first.units.Units.*;
 
-public class ElevatorSubsystem extends SubsystemBase {
+public class ElevatorSubsystem extends ProfiledSubsystem {
+    private final Telemetry.BooleanField limitSwitchTelemetry =
+            Telemetry.bool("Elevator Limit Switch", ManipTelemetry.LOW);
+    private final Telemetry.NumberField motorRotationsTelemetry =
+            Telemetry.number("Elev Motor Rotations", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField scaleHeightTelemetry = Telemetry.number("Scale Height", ManipTelemetry.HIGH);
+    private final Telemetry.BooleanField scaleHeightHitTelemetry =
+            Telemetry.bool("Scale Height Hit", ManipTelemetry.LOW);
 
     private final ManipSparkMax rightElevatorMotor = new ManipSparkMax(14);
     private final ManipSparkMax leftElevatorMotor = new ManipSparkMax(13);
@@ -32,11 +40,11 @@ public class ElevatorSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
-        SmartDashboard.putBoolean("Elevator Limit Switch", !elevatorLimitSwitch.get());
-        SmartDashboard.putNumber("Elev Motor Rotations", leftElevatorMotor.getPosition());
-        SmartDashboard.putNumber("Scale Height", scaleForDrive(1));
-        SmartDashboard.putBoolean("Scale Height Hit", scaleHeightHit.getAsBoolean());
+    protected void profiledPeriodic() {
+        limitSwitchTelemetry.set(!elevatorLimitSwitch.get());
+        motorRotationsTelemetry.set(leftElevatorMotor.getSensors().getPosition());
+        scaleHeightTelemetry.set(scaleForDrive(1));
+        scaleHeightHitTelemetry.set(scaleHeightHit.getAsBoolean());
     }
 
     public void setAutoStow() {
@@ -127,7 +135,7 @@ public class ElevatorSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Update the simulation Mechanism.
         Constants.kElevatorCarriage.setPosition(Constants.ArmConstants.armConfig.kArmLength +
                 Constants.ElevatorConstants.kCenterToElevator, elevator.getMechLength() +
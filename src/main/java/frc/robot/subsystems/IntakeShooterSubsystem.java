@@ -6,15 +6,16 @@ import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StructArrayPublisher;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants;
 import frc.robot.Constants.IntakeShooterConstants;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
 import maniplib.ManipShooterIntake;
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.motors.ManipSparkMax;
 import org.ironmaple.simulation.IntakeSimulation;
 import org.ironmaple.simulation.SimulatedArena;
@@ -22,7 +23,10 @@ import org.ironmaple.simulation.seasonspecific.reefscape2025.ReefscapeCoralOnFly
 
 import static edu.wpi.first.units.Units.*;
 
-public class IntakeShooterSubsystem extends SubsystemBase {
+public class IntakeShooterSubsystem extends ProfiledSubsystem {
+    private final Telemetry.BooleanField coralTriggerTelemetry = Telemetry.bool("Coral Trigger", ManipTelemetry.LOW);
+    private final Telemetry.NumberField appliedOutputTelemetry =
+            Telemetry.number("Intake Applied Output", ManipTelemetry.HIGH);
 
     private final ManipSparkMax intakeMotor = new ManipSparkMax(IntakeShooterConstants.kMotorID);
     private final ManipShooterIntake intakeShooter = new ManipShooterIntake(intakeMotor,
@@ -71,10 +75,10 @@ public class IntakeShooterSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         // This method will be called once per scheduler run
-        SmartDashboard.putBoolean("Coral Trigger", coralTrigger.getAsBoolean());
-        SmartDashboard.putNumber("Intake Applied Output", intakeMotor.getAppliedOutput());
+        coralTriggerTelemetry.set(coralTrigger.getAsBoolean());
+        appliedOutputTelemetry.set(intakeMotor.getSensors().getAppliedOutput());
     }
 
     public Command intake() {
@@ -113,7 +117,7 @@ public class IntakeShooterSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Get the positions of the notes (both on the field and in the air);
         coralPoses.set(SimulatedArena.getInstance()
                 .getGamePiecesByType("Coral")
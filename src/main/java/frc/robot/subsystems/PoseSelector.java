@@ -2,15 +2,45 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.units.measure.MutAngle;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.utils.AllianceFlipUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static edu.wpi.first.units.Units.Degrees;
 
-public class PoseSelector extends SubsystemBase {
+public class PoseSelector extends ProfiledSubsystem {
+    private final Telemetry.StringField reefPoseTelemetry = Telemetry.string("Reef Pose", ManipTelemetry.LOW);
+    private final Telemetry.StringField reefSideTelemetry = Telemetry.string("Reef Side", ManipTelemetry.LOW);
+    private final Telemetry.StringField reefBranchTelemetry = Telemetry.string("Reef Branch", ManipTelemetry.LOW);
+    private final Telemetry.NumberField selectedPoseTelemetry =
+            Telemetry.number("Reef Selected Pose", ManipTelemetry.LOW);
+    private final Telemetry.StringField stationSlotTelemetry = Telemetry.string("Station Slot", ManipTelemetry.LOW);
+    /**
+     * Selected targets flipped for the current alliance: reef, station, cage, algae, processor.
+     */
+    private final Telemetry.StructArrayField<Pose2d> targetsTelemetry =
+            Telemetry.structArray("Selected Targets", Pose2d.struct, ManipTelemetry.LOW);
+
+    private static final TargetTable kBlueTargets = new TargetTable();
+    private static final TargetTable kRedTargets = new TargetTable(kBlueTargets);
+
+    private static final int kReefTarget = 0;
+    private static final int kStationTarget = 1;
+    private static final int kCageTarget = 2;
+    private static final int kAlgaeTarget = 3;
+    private static final int kProcessorTarget = 4;
+    private final Pose2d[] targets = new Pose2d[5];
+    /**
+     * Set when a selection or the alliance changes so the published targets are recomputed.
+     */
+    private boolean targetsDirty = true;
 
     private final ReefPose[] poses = ReefPose.values();
     private final ReefSide[] sides = ReefSide.values();
@@ -26,19 +56,20 @@ public class PoseSelector extends SubsystemBase {
 
     public PoseSelector(SwerveSubsystem swerve) {
         this.swerve = swerve;
+        AllianceFlipUtil.addListener(red -> targetsDirty = true);
     }
 
     @Override
-    public void periodic() {
-        SmartDashboard.putString("Reef Pose", reefPose.toString());
-        SmartDashboard.putString("Reef Side", reefSide.toString());
-        SmartDashboard.putString("Reef Branch", leftOrRight.toString());
-        SmartDashboard.putNumber("Reef Selected Pose", selectedPose.in(Degrees));
+    protected void profiledPeriodic() {
+        reefPoseTelemetry.set(reefPose.name());
+        reefSideTelemetry.set(reefSide.name());
+        reefBranchTelemetry.set(leftOrRight.name());
+        selectedPoseTelemetry.set(selectedPose.in(Degrees));
 
-        SmartDashboard.putString("Station Slot", stationSlot.toString());
-        SmartDashboard.putString("Station Pose", flippedStationPose().toString());
+        stationSlotTelemetry.set(stationSlot.name());
 
-        SmartDashboard.putString("Reef Pose2d", flippedReefPose().toString());
+        refreshTargets();
+        targetsTelemetry.set(targets);
     }
 
     /**
@@ -188,84 +219,195 @@ public class PoseSelector extends SubsystemBase {
 
         selectedPose.mut_replace(((reefSide.ordinal() * 360) / 6.0) +
                 (leftOrRight.ordinal() == 0 ? -10 : 10), Degrees);
+        targetsDirty = true;
     }
 
     public void updateStationPose() {
         stationPose = StationPose.valueOf(stationSlot.toString() + leftOrRight.toString());
+        targetsDirty = true;
+    }
+
+    /**
+     * Recompute the published targets if a selection or the alliance changed since they were last computed.
+     */
+    private void refreshTargets() {
+        if (!targetsDirty) {
+            return;
+        }
+        TargetTable table = activeTargets();
+        targets[kReefTarget] = table.reef[reefPose.ordinal()];
+        targets[kStationTarget] = table.station[stationPose.ordinal()];
+        targets[kCageTarget] = table.cage[stationSlot.ordinal()];
+        targets[kAlgaeTarget] = table.algae[reefSide.ordinal()];
+        targets[kProcessorTarget] = table.processor;
+        targetsDirty = false;
     }
 
     /**
      * @return selected reef {@link Pose2d}.
      */
     public Pose2d selectedReefPose() {
-        return switch (reefPose) {
-            case NORTH_LEFT -> Constants.DrivebaseConstants.REEF_NORTH_LEFT_POSE;
-            case NORTH_RIGHT -> Constants.DrivebaseConstants.REEF_NORTH_RIGHT_POSE;
-            case NORTHEAST_LEFT -> Constants.DrivebaseConstants.REEF_NORTHEAST_LEFT_POSE;
-            case NORTHEAST_RIGHT -> Constants.DrivebaseConstants.REEF_NORTHEAST_RIGHT_POSE;
-            case NORTHWEST_LEFT -> Constants.DrivebaseConstants.REEF_NORTHWEST_LEFT_POSE;
-            case NORTHWEST_RIGHT -> Constants.DrivebaseConstants.REEF_NORTHWEST_RIGHT_POSE;
-            case SOUTH_LEFT -> Constants.DrivebaseConstants.REEF_SOUTH_LEFT_POSE;
-            case SOUTH_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTH_RIGHT_POSE;
-            case SOUTHEAST_LEFT -> Constants.DrivebaseConstants.REEF_SOUTHEAST_LEFT_POSE;
-            case SOUTHEAST_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTHEAST_RIGHT_POSE;
-            case SOUTHWEST_LEFT -> Constants.DrivebaseConstants.REEF_SOUTHWEST_LEFT_POSE;
-            case SOUTHWEST_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTHWEST_RIGHT_POSE;
-            default -> swerve.getPose();
-        };
+        return kBlueTargets.reef[reefPose.ordinal()];
     }
 
     public Pose2d flippedReefPose() {
-        return AllianceFlipUtil.shouldFlip() ? AllianceFlipUtil.flip(selectedReefPose()) : selectedReefPose();
+        return activeTargets().reef[reefPose.ordinal()];
     }
 
     public Pose2d selectedStationPose() {
-        return switch (stationPose) {
-            case POSE_1_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_1;
-            case POSE_2_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_2;
-            case POSE_3_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_3;
-            case POSE_1_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_1;
-            case POSE_2_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_2;
-            case POSE_3_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_3;
-            default -> swerve.getPose();
-        };
+        return kBlueTargets.station[stationPose.ordinal()];
     }
 
     public Pose2d flippedStationPose() {
-        return AllianceFlipUtil.shouldFlip() ? AllianceFlipUtil.flip(selectedStationPose()) : selectedStationPose();
+        return activeTargets().station[stationPose.ordinal()];
     }
 
     public Pose2d selectedCagePose() {
-        return switch (stationSlot) {
-            case POSE_1 -> Constants.DrivebaseConstants.LEFT_CAGE_POSE;
-            case POSE_2 -> Constants.DrivebaseConstants.MIDDLE_CAGE_POSE;
-            case POSE_3 -> Constants.DrivebaseConstants.RIGHT_CAGE_POSE;
-            default -> swerve.getPose();
-        };
+        return kBlueTargets.cage[stationSlot.ordinal()];
     }
 
     public Pose2d flippedCagePose() {
-        return AllianceFlipUtil.shouldFlip() ? AllianceFlipUtil.flip(selectedCagePose()) : selectedCagePose();
+        return activeTargets().cage[stationSlot.ordinal()];
     }
 
     public Pose2d selectedAlgaePose() {
-        return switch (reefSide) {
-            case NORTH -> Constants.DrivebaseConstants.ALGAE_NORTH;
-            case NORTHEAST -> Constants.DrivebaseConstants.ALGAE_NORTHEAST;
-            case SOUTHEAST -> Constants.DrivebaseConstants.ALGAE_SOUTHEAST;
-            case SOUTH -> Constants.DrivebaseConstants.ALGAE_SOUTH;
-            case SOUTHWEST -> Constants.DrivebaseConstants.ALGAE_SOUTHWEST;
-            case NORTHWEST -> Constants.DrivebaseConstants.ALGAE_NORTHWEST;
-            default -> swerve.getPose();
-        };
+        return kBlueTargets.algae[reefSide.ordinal()];
     }
 
     public Pose2d flippedAlgaePose() {
-        return AllianceFlipUtil.shouldFlip() ? AllianceFlipUtil.flip(selectedAlgaePose()) : selectedAlgaePose();
+        return activeTargets().algae[reefSide.ordinal()];
     }
 
     public Pose2d flippedProcessorPose() {
-        return AllianceFlipUtil.shouldFlip() ? AllianceFlipUtil.flip(Constants.DrivebaseConstants.PROCESSOR) : Constants.DrivebaseConstants.PROCESSOR;
+        return activeTargets().processor;
+    }
+
+    /**
+     * @return Every target pose of both alliances, each listed once.
+     */
+    public static List<Pose2d> allTargets() {
+        List<Pose2d> targets = new ArrayList<>();
+        kBlueTargets.addTo(targets);
+        kRedTargets.addTo(targets);
+        return targets;
+    }
+
+    /**
+     * @param redAlliance Whether to get the red alliance targets.
+     * @return Every reef target of one alliance.
+     */
+    public static List<Pose2d> reefTargets(boolean redAlliance) {
+        return List.of((redAlliance ? kRedTargets : kBlueTargets).reef);
+    }
+
+    /**
+     * @param redAlliance Whether to get the red alliance targets.
+     * @return Every coral station target of one alliance.
+     */
+    public static List<Pose2d> stationTargets(boolean redAlliance) {
+        return List.of((redAlliance ? kRedTargets : kBlueTargets).station);
+    }
+
+    /**
+     * @return Target table for the current alliance.
+     */
+    private static TargetTable activeTargets() {
+        return AllianceFlipUtil.shouldFlip() ? kRedTargets : kBlueTargets;
+    }
+
+    /**
+     * Target poses for one alliance, indexed by the ordinal of the selection they belong to. Built once, never
+     * modified.
+     */
+    private static final class TargetTable {
+        /**
+         * Indexed by {@link ReefPose}.
+         */
+        final Pose2d[] reef = new Pose2d[ReefPose.values().length];
+        /**
+         * Indexed by {@link StationPose}.
+         */
+        final Pose2d[] station = new Pose2d[StationPose.values().length];
+        /**
+         * Indexed by {@link StationSlot}.
+         */
+        final Pose2d[] cage = new Pose2d[StationSlot.values().length];
+        /**
+         * Indexed by {@link ReefSide}.
+         */
+        final Pose2d[] algae = new Pose2d[ReefSide.values().length];
+        final Pose2d processor;
+
+        /**
+         * Build the blue alliance table from the poses in {@link Constants.DrivebaseConstants}.
+         */
+        TargetTable() {
+            for (ReefPose pose : ReefPose.values()) {
+                reef[pose.ordinal()] = switch (pose) {
+                    case NORTH_LEFT -> Constants.DrivebaseConstants.REEF_NORTH_LEFT_POSE;
+                    case NORTH_RIGHT -> Constants.DrivebaseConstants.REEF_NORTH_RIGHT_POSE;
+                    case NORTHEAST_LEFT -> Constants.DrivebaseConstants.REEF_NORTHEAST_LEFT_POSE;
+                    case NORTHEAST_RIGHT -> Constants.DrivebaseConstants.REEF_NORTHEAST_RIGHT_POSE;
+                    case NORTHWEST_LEFT -> Constants.DrivebaseConstants.REEF_NORTHWEST_LEFT_POSE;
+                    case NORTHWEST_RIGHT -> Constants.DrivebaseConstants.REEF_NORTHWEST_RIGHT_POSE;
+                    case SOUTH_LEFT -> Constants.DrivebaseConstants.REEF_SOUTH_LEFT_POSE;
+                    case SOUTH_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTH_RIGHT_POSE;
+                    case SOUTHEAST_LEFT -> Constants.DrivebaseConstants.REEF_SOUTHEAST_LEFT_POSE;
+                    case SOUTHEAST_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTHEAST_RIGHT_POSE;
+                    case SOUTHWEST_LEFT -> Constants.DrivebaseConstants.REEF_SOUTHWEST_LEFT_POSE;
+                    case SOUTHWEST_RIGHT -> Constants.DrivebaseConstants.REEF_SOUTHWEST_RIGHT_POSE;
+                };
+            }
+            for (StationPose pose : StationPose.values()) {
+                station[pose.ordinal()] = switch (pose) {
+                    case POSE_1_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_1;
+                    case POSE_2_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_2;
+                    case POSE_3_LEFT -> Constants.DrivebaseConstants.LEFT_STATION_POSE_3;
+                    case POSE_1_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_1;
+                    case POSE_2_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_2;
+                    case POSE_3_RIGHT -> Constants.DrivebaseConstants.RIGHT_STATION_POSE_3;
+                };
+            }
+            for (StationSlot slot : StationSlot.values()) {
+                cage[slot.ordinal()] = switch (slot) {
+                    case POSE_1 -> Constants.DrivebaseConstants.LEFT_CAGE_POSE;
+                    case POSE_2 -> Constants.DrivebaseConstants.MIDDLE_CAGE_POSE;
+                    case POSE_3 -> Constants.DrivebaseConstants.RIGHT_CAGE_POSE;
+                };
+            }
+            for (ReefSide side : ReefSide.values()) {
+                algae[side.ordinal()] = switch (side) {
+                    case NORTH -> Constants.DrivebaseConstants.ALGAE_NORTH;
+                    case NORTHEAST -> Constants.DrivebaseConstants.ALGAE_NORTHEAST;
+                    case SOUTHEAST -> Constants.DrivebaseConstants.ALGAE_SOUTHEAST;
+                    case SOUTH -> Constants.DrivebaseConstants.ALGAE_SOUTH;
+                    case SOUTHWEST -> Constants.DrivebaseConstants.ALGAE_SOUTHWEST;
+                    case NORTHWEST -> Constants.DrivebaseConstants.ALGAE_NORTHWEST;
+                };
+            }
+            processor = Constants.DrivebaseConstants.PROCESSOR;
+        }
+
+        /**
+         * Build the red alliance table by flipping the blue one.
+         *
+         * @param blue Blue alliance table.
+         */
+        TargetTable(TargetTable blue) {
+            AllianceFlipUtil.flipAlways(blue.reef, reef);
+            AllianceFlipUtil.flipAlways(blue.station, station);
+            AllianceFlipUtil.flipAlways(blue.cage, cage);
+            AllianceFlipUtil.flipAlways(blue.algae, algae);
+            processor = AllianceFlipUtil.flipAlways(blue.processor);
+        }
+
+        void addTo(List<Pose2d> out) {
+            out.addAll(Arrays.asList(reef));
+            out.addAll(Arrays.asList(station));
+            out.addAll(Arrays.asList(cage));
+            out.addAll(Arrays.asList(algae));
+            out.add(processor);
+        }
     }
 
     public enum ReefSide {
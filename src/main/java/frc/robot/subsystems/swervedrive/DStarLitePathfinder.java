@@ -0,0 +1,694 @@
+package frc.robot.subsystems.swervedrive;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.Pathfinder;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grid pathfinder for PathPlanner's pathfinding commands. The navgrid is kept as packed bitsets and paths are searched
+ * with D* Lite, so moving the start or changing the dynamic obstacles repairs the previous search instead of starting
+ * over. The grid path is then cut down to the shortest chain of line of sight segments between its nodes. Planning
+ * runs on its own thread, the {@link Pathfinder} methods only post requests and read results.
+ */
+public final class DStarLitePathfinder implements Pathfinder {
+
+    /**
+     * Move costs are whole numbers so every cost, heuristic and key sum is exact. With rounding, keys that should tie
+     * can end the search before the start is up to date.
+     */
+    private static final double kStraightCost = 1000.0;
+    private static final double kDiagonalCost = 1414.0;
+    private static final double kInfinity = Double.POSITIVE_INFINITY;
+    private static final int[] kNeighborX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] kNeighborY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final double nodeSize;
+    private final int nodesX;
+    private final int nodesY;
+    private final long[] staticObstacles;
+
+    // Search state, only touched by the planning thread.
+    /**
+     * Static and dynamic obstacles, one bit per node indexed by {@code y * nodesX + x}.
+     */
+    private final long[] obstacles;
+    private final long[] dynamicObstacles;
+    private final double[] g;
+    private final double[] rhs;
+    private final IndexedHeap open;
+    private final int[] changedNodes;
+    private final int[] pathNodes;
+    private double km = 0.0;
+    private int startNode = -1;
+    private int goalNode = -1;
+
+    // Requests and results, guarded by this.
+    private Translation2d requestStart = Translation2d.kZero;
+    private Translation2d requestGoal = Translation2d.kZero;
+    private long[] requestDynamicObstacles = null;
+    private long requestCount = 0;
+    private List<Translation2d> pathPoints = List.of();
+    private boolean newPathAvailable = false;
+
+    private final DoubleLogEntry planTimeLog;
+
+    /**
+     * Load the navgrid from the deploy directory and start the planning thread.
+     *
+     * @param name Name of the planning thread, also used for the log entry of planning times.
+     */
+    public DStarLitePathfinder(String name) {
+        JSONObject navgrid = readNavgrid();
+        nodeSize = ((Number) navgrid.get("nodeSizeMeters")).doubleValue();
+        JSONArray grid = (JSONArray) navgrid.get("grid");
+        nodesY = grid.size();
+        nodesX = ((JSONArray) grid.get(0)).size();
+        int nodeCount = nodesX * nodesY;
+        int words = (nodeCount + 63) >>> 6;
+
+        staticObstacles = new long[words];
+        for (int y = 0; y < nodesY; y++) {
+            JSONArray row = (JSONArray) grid.get(y);
+            for (int x = 0; x < nodesX; x++) {
+                if ((Boolean) row.get(x)) {
+                    setBit(staticObstacles, y * nodesX + x);
+                }
+            }
+        }
+        obstacles = staticObstacles.clone();
+        dynamicObstacles = new long[words];
+        g = new double[nodeCount];
+        rhs = new double[nodeCount];
+        open = new IndexedHeap(nodeCount);
+        changedNodes = new int[nodeCount];
+        pathNodes = new int[nodeCount];
+        planTimeLog = new DoubleLogEntry(DataLogManager.getLog(), "/Pathfinder/" + name + "/PlanMs");
+
+        Thread planner = new Thread(this::planLoop, name);
+        planner.setDaemon(true);
+        planner.start();
+    }
+
+    @Override
+    public synchronized boolean isNewPathAvailable() {
+        return newPathAvailable;
+    }
+
+    @Override
+    public synchronized PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+        newPathAvailable = false;
+        if (pathPoints.size() < 2) {
+            return null;
+        }
+        return pathThrough(pathPoints, constraints, goalEndState);
+    }
+
+    @Override
+    public synchronized void setStartPosition(Translation2d startPosition) {
+        requestStart = startPosition;
+        request();
+    }
+
+    @Override
+    public synchronized void setGoalPosition(Translation2d goalPosition) {
+        requestGoal = goalPosition;
+        request();
+    }
+
+    @Override
+    public void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+        long[] dynamic = new long[dynamicObstacles.length];
+        for (Pair<Translation2d, Translation2d> box : obs) {
+            Translation2d a = box.getFirst();
+            Translation2d b = box.getSecond();
+            int minX = cellX(Math.min(a.getX(), b.getX()));
+            int maxX = cellX(Math.max(a.getX(), b.getX()));
+            int minY = cellY(Math.min(a.getY(), b.getY()));
+            int maxY = cellY(Math.max(a.getY(), b.getY()));
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    setBit(dynamic, y * nodesX + x);
+                }
+            }
+        }
+        synchronized (this) {
+            requestDynamicObstacles = dynamic;
+            requestStart = currentRobotPos;
+            request();
+        }
+    }
+
+    /**
+     * Build a path through a list of points, each waypoint heading towards the next one.
+     *
+     * @param points       Points from the start to the goal, at least two.
+     * @param constraints  Constraints of the path.
+     * @param goalEndState End state of the path.
+     * @return The path.
+     */
+    public static PathPlannerPath pathThrough(List<Translation2d> points, PathConstraints constraints,
+                                              GoalEndState goalEndState) {
+        List<Pose2d> poses = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            Translation2d from = points.get(i == points.size() - 1 ? i - 1 : i);
+            Translation2d to = points.get(i == points.size() - 1 ? i : i + 1);
+            poses.add(new Pose2d(points.get(i), to.minus(from).getAngle()));
+        }
+        return new PathPlannerPath(PathPlannerPath.waypointsFromPoses(poses), constraints, null, goalEndState);
+    }
+
+    /**
+     * Wake the planning thread. A path only becomes available once the latest request has been planned, so a caller
+     * never reads a path planned for an older start or goal.
+     */
+    private void request() {
+        requestCount++;
+        newPathAvailable = false;
+        notifyAll();
+    }
+
+    private void planLoop() {
+        long planned = 0;
+        try {
+            while (true) {
+                Translation2d start;
+                Translation2d goal;
+                long[] dynamic;
+                long count;
+                synchronized (this) {
+                    while (requestCount == planned) {
+                        wait();
+                    }
+                    start = requestStart;
+                    goal = requestGoal;
+                    dynamic = requestDynamicObstacles;
+                    requestDynamicObstacles = null;
+                    count = requestCount;
+                }
+
+                long startNanos = System.nanoTime();
+                List<Translation2d> points = plan(start, goal, dynamic);
+                planTimeLog.append((System.nanoTime() - startNanos) / 1e6);
+                planned = count;
+
+                synchronized (this) {
+                    pathPoints = points;
+                    newPathAvailable = requestCount == count;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            DriverStation.reportError("Pathfinder stopped: " + e.getMessage(), e.getStackTrace());
+        }
+    }
+
+    /**
+     * Bring the search up to date with the request and read the path out of it.
+     *
+     * @return Points from the start to the goal, empty if there is no path.
+     */
+    private List<Translation2d> plan(Translation2d start, Translation2d goal, long[] dynamic) {
+        int changedCount = 0;
+        if (dynamic != null) {
+            System.arraycopy(dynamic, 0, dynamicObstacles, 0, dynamic.length);
+            for (int word = 0; word < obstacles.length; word++) {
+                long next = staticObstacles[word] | dynamic[word];
+                long diff = next ^ obstacles[word];
+                obstacles[word] = next;
+                while (diff != 0) {
+                    changedNodes[changedCount++] = (word << 6) + Long.numberOfTrailingZeros(diff);
+                    diff &= diff - 1;
+                }
+            }
+        }
+
+        int newStart = closestFree(cellX(start.getX()), cellY(start.getY()));
+        int newGoal = closestFree(cellX(goal.getX()), cellY(goal.getY()));
+        if (newStart < 0 || newGoal < 0) {
+            return List.of();
+        }
+        if (newGoal != goalNode) {
+            // The search runs from the goal, a new goal needs a new search.
+            startNode = newStart;
+            goalNode = newGoal;
+            initialize();
+        } else {
+            // Keys already in the queue were computed from the old start, km keeps them lower bounds.
+            km += heuristic(startNode, newStart);
+            startNode = newStart;
+            for (int i = 0; i < changedCount; i++) {
+                int node = changedNodes[i];
+                updateVertex(node);
+                for (int d = 0; d < 8; d++) {
+                    int neighbor = neighbor(node, d);
+                    if (neighbor >= 0) {
+                        updateVertex(neighbor);
+                    }
+                }
+            }
+        }
+        computeShortestPath();
+
+        int pathLength = extractPath();
+        if (pathLength == 0) {
+            return List.of();
+        }
+        return smooth(pathLength, start, goal);
+    }
+
+    private void initialize() {
+        Arrays.fill(g, kInfinity);
+        Arrays.fill(rhs, kInfinity);
+        open.clear();
+        km = 0.0;
+        rhs[goalNode] = 0.0;
+        open.insert(goalNode, heuristic(startNode, goalNode), 0.0);
+    }
+
+    private void computeShortestPath() {
+        while (!open.isEmpty()) {
+            int u = open.top();
+            double oldKey1 = open.key1(u);
+            double oldKey2 = open.key2(u);
+            double startMin = Math.min(g[startNode], rhs[startNode]);
+            boolean topBeforeStart = oldKey1 < startMin + km || (oldKey1 == startMin + km && oldKey2 < startMin);
+            if (!topBeforeStart && rhs[startNode] <= g[startNode]) {
+                break;
+            }
+
+            double min = Math.min(g[u], rhs[u]);
+            double newKey1 = min + heuristic(startNode, u) + km;
+            if (oldKey1 < newKey1 || (oldKey1 == newKey1 && oldKey2 < min)) {
+                open.update(u, newKey1, min);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                open.remove(u);
+                updateNeighbors(u);
+            } else {
+                g[u] = kInfinity;
+                updateVertex(u);
+                updateNeighbors(u);
+            }
+        }
+    }
+
+    private void updateNeighbors(int node) {
+        for (int d = 0; d < 8; d++) {
+            int neighbor = neighbor(node, d);
+            if (neighbor >= 0) {
+                updateVertex(neighbor);
+            }
+        }
+    }
+
+    private void updateVertex(int u) {
+        if (u != goalNode) {
+            double best = kInfinity;
+            for (int d = 0; d < 8; d++) {
+                int neighbor = neighbor(u, d);
+                if (neighbor >= 0) {
+                    best = Math.min(best, cost(u, d) + g[neighbor]);
+                }
+            }
+            rhs[u] = best;
+        }
+        if (g[u] != rhs[u]) {
+            double min = Math.min(g[u], rhs[u]);
+            open.insertOrUpdate(u, min + heuristic(startNode, u) + km, min);
+        } else {
+            open.remove(u);
+        }
+    }
+
+    /**
+     * Follow the cheapest neighbors from the start to the goal into {@link DStarLitePathfinder#pathNodes}.
+     *
+     * @return Number of nodes on the path, 0 if the goal can't be reached.
+     */
+    private int extractPath() {
+        if (g[startNode] == kInfinity && rhs[startNode] == kInfinity) {
+            return 0;
+        }
+        int length = 0;
+        int node = startNode;
+        pathNodes[length++] = node;
+        while (node != goalNode) {
+            if (length == pathNodes.length) {
+                return 0;
+            }
+            int next = -1;
+            double best = kInfinity;
+            for (int d = 0; d < 8; d++) {
+                int neighbor = neighbor(node, d);
+                if (neighbor >= 0) {
+                    double total = cost(node, d) + g[neighbor];
+                    if (total < best) {
+                        best = total;
+                        next = neighbor;
+                    }
+                }
+            }
+            if (next < 0) {
+                return 0;
+            }
+            node = next;
+            pathNodes[length++] = node;
+        }
+        return length;
+    }
+
+    /**
+     * Visibility pass over the grid path: the shortest chain of its nodes where each node can see the next. The ends
+     * are replaced by the requested start and goal.
+     */
+    private List<Translation2d> smooth(int length, Translation2d start, Translation2d goal) {
+        double[] distance = new double[length];
+        int[] parent = new int[length];
+        for (int j = 1; j < length; j++) {
+            distance[j] = kInfinity;
+            for (int i = 0; i < j; i++) {
+                double through = distance[i] + nodeDistance(pathNodes[i], pathNodes[j]);
+                if (through < distance[j] && visible(pathNodes[i], pathNodes[j])) {
+                    distance[j] = through;
+                    parent[j] = i;
+                }
+            }
+        }
+
+        int count = 1;
+        for (int i = length - 1; i > 0; i = parent[i]) {
+            count++;
+        }
+        Translation2d[] points = new Translation2d[Math.max(count, 2)];
+        int index = points.length - 1;
+        points[index--] = goal;
+        for (int i = parent[length - 1]; i > 0; i = parent[i]) {
+            points[index--] = nodeCenter(pathNodes[i]);
+        }
+        points[0] = start;
+        return List.of(points);
+    }
+
+    /**
+     * Whether the straight segment between two points only crosses free cells of the navgrid, with the same check the
+     * planner smooths its paths with. Dynamic obstacles are ignored. Only reads the static navgrid, so it is safe to
+     * call from any thread.
+     *
+     * @param from Start of the segment.
+     * @param to   End of the segment.
+     * @return True if nothing on the navgrid blocks the segment.
+     */
+    public boolean hasLineOfSight(Translation2d from, Translation2d to) {
+        int fromX = cellX(from.getX());
+        int fromY = cellY(from.getY());
+        return !blocked(staticObstacles, fromX, fromY)
+                && visible(staticObstacles, fromY * nodesX + fromX, cellY(to.getY()) * nodesX + cellX(to.getX()));
+    }
+
+    private boolean visible(int from, int to) {
+        return visible(obstacles, from, to);
+    }
+
+    /**
+     * Walk every cell the segment between two node centers passes through. Passing exactly through a corner needs
+     * both cells beside it free, the same rule as diagonal moves.
+     */
+    private boolean visible(long[] grid, int from, int to) {
+        int x = from % nodesX;
+        int y = from / nodesX;
+        int endX = to % nodesX;
+        int endY = to / nodesX;
+        int stepX = Integer.signum(endX - x);
+        int stepY = Integer.signum(endY - y);
+        // The segment is parameterized from 0 to 1, it crosses a cell border every tDelta.
+        double tDeltaX = endX == x ? kInfinity : 1.0 / Math.abs(endX - x);
+        double tDeltaY = endY == y ? kInfinity : 1.0 / Math.abs(endY - y);
+        double tMaxX = tDeltaX * 0.5;
+        double tMaxY = tDeltaY * 0.5;
+        while (x != endX || y != endY) {
+            if (Math.abs(tMaxX - tMaxY) < 1e-9) {
+                if (blocked(grid, x + stepX, y) || blocked(grid, x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                tMaxX += tDeltaX;
+                tMaxY += tDeltaY;
+            } else if (tMaxX < tMaxY) {
+                x += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                y += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (blocked(grid, x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cost of moving from a node to its neighbor in a direction. Diagonal moves may not cut a corner.
+     */
+    private double cost(int node, int direction) {
+        int x = node % nodesX;
+        int y = node / nodesX;
+        int dx = kNeighborX[direction];
+        int dy = kNeighborY[direction];
+        if (blocked(x, y) || blocked(x + dx, y + dy)) {
+            return kInfinity;
+        }
+        if (dx != 0 && dy != 0) {
+            return blocked(x + dx, y) || blocked(x, y + dy) ? kInfinity : kDiagonalCost;
+        }
+        return kStraightCost;
+    }
+
+    /**
+     * Octile distance, the exact cost between two nodes on an empty grid.
+     */
+    private double heuristic(int a, int b) {
+        int dx = Math.abs(a % nodesX - b % nodesX);
+        int dy = Math.abs(a / nodesX - b / nodesX);
+        return kStraightCost * (dx + dy) + (kDiagonalCost - 2.0 * kStraightCost) * Math.min(dx, dy);
+    }
+
+    private double nodeDistance(int a, int b) {
+        return Math.hypot(a % nodesX - b % nodesX, a / nodesX - b / nodesX);
+    }
+
+    private int neighbor(int node, int direction) {
+        int x = node % nodesX + kNeighborX[direction];
+        int y = node / nodesX + kNeighborY[direction];
+        return x < 0 || y < 0 || x >= nodesX || y >= nodesY ? -1 : y * nodesX + x;
+    }
+
+    private boolean blocked(int x, int y) {
+        return blocked(obstacles, x, y);
+    }
+
+    private boolean blocked(long[] grid, int x, int y) {
+        return x < 0 || y < 0 || x >= nodesX || y >= nodesY || getBit(grid, y * nodesX + x);
+    }
+
+    /**
+     * @return The free node closest to a cell, or -1 if the whole grid is blocked.
+     */
+    private int closestFree(int x, int y) {
+        if (!blocked(x, y)) {
+            return y * nodesX + x;
+        }
+        for (int ring = 1; ring < Math.max(nodesX, nodesY); ring++) {
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int dy = -ring; dy <= ring; dy++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) == ring && !blocked(x + dx, y + dy)
+                            && dx * dx + dy * dy < bestDistance) {
+                        best = (y + dy) * nodesX + x + dx;
+                        bestDistance = dx * dx + dy * dy;
+                    }
+                }
+            }
+            if (best >= 0) {
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    private int cellX(double x) {
+        return MathUtil.clamp((int) Math.floor(x / nodeSize), 0, nodesX - 1);
+    }
+
+    private int cellY(double y) {
+        return MathUtil.clamp((int) Math.floor(y / nodeSize), 0, nodesY - 1);
+    }
+
+    private Translation2d nodeCenter(int node) {
+        return new Translation2d((node % nodesX + 0.5) * nodeSize, (node / nodesX + 0.5) * nodeSize);
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static JSONObject readNavgrid() {
+        File file = new File(Filesystem.getDeployDirectory(), "pathplanner/navgrid.json");
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            return (JSONObject) new JSONParser().parse(reader);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Binary min heap of nodes ordered by their D* Lite key, with the position of every node kept so keys can be
+     * changed and nodes removed in place.
+     */
+    private static final class IndexedHeap {
+        private final int[] heap;
+        private final int[] position;
+        private final double[] key1;
+        private final double[] key2;
+        private int size = 0;
+
+        IndexedHeap(int capacity) {
+            heap = new int[capacity];
+            position = new int[capacity];
+            key1 = new double[capacity];
+            key2 = new double[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int top() {
+            return heap[0];
+        }
+
+        double key1(int node) {
+            return key1[node];
+        }
+
+        double key2(int node) {
+            return key2[node];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                position[heap[i]] = -1;
+            }
+            size = 0;
+        }
+
+        void insert(int node, double k1, double k2) {
+            key1[node] = k1;
+            key2[node] = k2;
+            heap[size] = node;
+            position[node] = size;
+            siftUp(size++);
+        }
+
+        void update(int node, double k1, double k2) {
+            key1[node] = k1;
+            key2[node] = k2;
+            int index = position[node];
+            siftUp(index);
+            siftDown(position[node]);
+        }
+
+        void insertOrUpdate(int node, double k1, double k2) {
+            if (position[node] < 0) {
+                insert(node, k1, k2);
+            } else {
+                update(node, k1, k2);
+            }
+        }
+
+        void remove(int node) {
+            int index = position[node];
+            if (index < 0) {
+                return;
+            }
+            position[node] = -1;
+            int last = heap[--size];
+            if (index < size) {
+                heap[index] = last;
+                position[last] = index;
+                siftUp(index);
+                siftDown(position[last]);
+            }
+        }
+
+        private boolean less(int a, int b) {
+            return key1[a] < key1[b] || (key1[a] == key1[b] && key2[a] < key2[b]);
+        }
+
+        private void siftUp(int index) {
+            int node = heap[index];
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+                int parent = heap[parentIndex];
+                if (!less(node, parent)) {
+                    break;
+                }
+                heap[index] = parent;
+                position[parent] = index;
+                index = parentIndex;
+            }
+            heap[index] = node;
+            position[node] = index;
+        }
+
+        private void siftDown(int index) {
+            int node = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], node)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                position[heap[index]] = index;
+                index = child;
+            }
+            heap[index] = node;
+            position[node] = index;
+        }
+    }
+}
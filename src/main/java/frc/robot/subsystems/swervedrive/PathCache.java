@@ -0,0 +1,267 @@
+package frc.robot.subsystems.swervedrive;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.Pathfinder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.units.measure.LinearVelocity;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paths to the fixed field targets, planned ahead of time so a drive to pose can start following a path as soon as it
+ * is scheduled instead of waiting on a fresh search. Paths are keyed by the navgrid cell the robot starts in and the
+ * goal, and are planned on a background thread with a dedicated {@link DStarLitePathfinder} so PathPlanner's own
+ * pathfinder is left alone. Lookups, warm up and plan ahead requests are made from the main thread.
+ */
+public final class PathCache {
+
+    /**
+     * Constraints passed to the planner, only the waypoints of the planned paths are kept.
+     */
+    private static final PathConstraints kPlanConstraints = new PathConstraints(1.0, 1.0, 1.0, 1.0);
+    private static final GoalEndState kPlanEndState = new GoalEndState(0.0, Rotation2d.kZero);
+    private static final long kPollMillis = 2;
+    /**
+     * How long the planner waits before checking for requests again when there is nothing it can plan.
+     */
+    private static final long kIdlePollMillis = 20;
+    private static final long kNoKey = -1;
+
+    private final Pose2d[] goals;
+    private final DStarLitePathfinder planner = new DStarLitePathfinder("PathCache Planner");
+    /**
+     * Waypoints between the start and the goal, keyed by {@link PathCache#key(int, Translation2d)}.
+     */
+    private final Map<Long, List<Translation2d>> paths = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> requests = new LinkedBlockingQueue<>();
+    /**
+     * Legs queued by {@link PathCache#warmUp(List, List)}, only planned while the robot is disabled.
+     */
+    private final BlockingQueue<Long> warmUpRequests = new LinkedBlockingQueue<>();
+    private final Set<Long> requested = ConcurrentHashMap.newKeySet();
+    /**
+     * Latest plan ahead request, planned before anything queued. A newer request replaces one not yet started.
+     */
+    private final AtomicLong planAheadKey = new AtomicLong(kNoKey);
+
+    private final Telemetry.NumberField hitsTelemetry = Telemetry.number("PathCache/Hits", ManipTelemetry.LOW);
+    private final Telemetry.NumberField missesTelemetry = Telemetry.number("PathCache/Misses", ManipTelemetry.LOW);
+    private final Telemetry.NumberField sizeTelemetry = Telemetry.number("PathCache/Paths", ManipTelemetry.HIGH);
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Create the cache and start the planning thread. Nothing is planned until a path is missed, planned ahead or
+     * warmed up.
+     *
+     * @param goals Poses paths can be planned to, for both alliances.
+     */
+    public PathCache(List<Pose2d> goals) {
+        this.goals = goals.toArray(new Pose2d[0]);
+
+        Thread plannerThread = new Thread(this::planLoop, "PathCache");
+        plannerThread.setDaemon(true);
+        plannerThread.start();
+    }
+
+    /**
+     * Queue the paths from each start to each goal, the legs the robot drives between targets during a match. They
+     * are only planned while the robot is disabled, so warming up never competes with the robot loop in a match.
+     * Paths to the same goal are planned back to back, the planner only repairs its search when just the start moves.
+     *
+     * @param starts Poses the legs start from.
+     * @param ends   Poses the legs drive to, goals the cache was created with.
+     */
+    public void warmUp(List<Pose2d> starts, List<Pose2d> ends) {
+        for (Pose2d end : ends) {
+            int goalIndex = indexOf(end);
+            if (goalIndex < 0) {
+                continue;
+            }
+            for (Pose2d start : starts) {
+                long key = key(goalIndex, start.getTranslation());
+                if (requested.add(key)) {
+                    warmUpRequests.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a path from the current pose to a goal. Misses are queued so the next drive from the same cell hits. The
+     * path was planned from the center of the robot's cell, so it is a miss too when something on the navgrid blocks
+     * the robot's view of the first waypoint.
+     *
+     * @param current      Current robot pose.
+     * @param goal         Pose to drive to, one of the goals the cache was created with.
+     * @param constraints  Constraints of the returned path.
+     * @param goalVelocity Velocity at the end of the path.
+     * @return The path, or empty if it has not been planned yet.
+     */
+    public Optional<PathPlannerPath> getPath(Pose2d current, Pose2d goal, PathConstraints constraints,
+                                             LinearVelocity goalVelocity) {
+        int goalIndex = indexOf(goal);
+        if (goalIndex < 0) {
+            return Optional.empty();
+        }
+        long key = key(goalIndex, current.getTranslation());
+        List<Translation2d> interior = paths.get(key);
+        if (interior == null) {
+            request(key);
+            missesTelemetry.set(++misses);
+            return Optional.empty();
+        }
+        // Start from where the robot actually is.
+        List<Translation2d> points = new ArrayList<>(interior.size() + 2);
+        points.add(current.getTranslation());
+        points.addAll(interior);
+        points.add(goal.getTranslation());
+        if (!planner.hasLineOfSight(points.get(0), points.get(1))) {
+            missesTelemetry.set(++misses);
+            return Optional.empty();
+        }
+        hitsTelemetry.set(++hits);
+        sizeTelemetry.set(paths.size());
+        PathPlannerPath path = DStarLitePathfinder.pathThrough(points, constraints,
+                new GoalEndState(goalVelocity, goal.getRotation()));
+        // Planned in field coordinates for the goal's alliance.
+        path.preventFlipping = true;
+        return Optional.of(path);
+    }
+
+    /**
+     * Plan the path from the current cell to a goal before anything else queued, replacing the previous plan ahead
+     * request if it has not started yet. Call when the robot is likely to drive to the goal soon.
+     *
+     * @param current Current robot pose.
+     * @param goal    Pose that will be driven to, one of the goals the cache was created with.
+     */
+    public void planAhead(Pose2d current, Pose2d goal) {
+        int goalIndex = indexOf(goal);
+        if (goalIndex >= 0) {
+            planAheadKey.set(key(goalIndex, current.getTranslation()));
+        }
+    }
+
+    private void request(long key) {
+        if (requested.add(key)) {
+            requests.add(key);
+        }
+    }
+
+    private void planLoop() {
+        try {
+            while (true) {
+                long key = nextKey();
+                if (paths.containsKey(key)) {
+                    continue;
+                }
+                Translation2d start = cellCenter(key);
+                Translation2d goal = goals[(int) (key >>> 32)].getTranslation();
+                List<Translation2d> interior = plan(planner, start, goal);
+                if (interior != null) {
+                    paths.put(key, interior);
+                } else {
+                    // Let the next miss ask for it again.
+                    requested.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            DriverStation.reportError("PathCache planner stopped: " + e.getMessage(), e.getStackTrace());
+        }
+    }
+
+    private long nextKey() throws InterruptedException {
+        while (true) {
+            long key = planAheadKey.getAndSet(kNoKey);
+            if (key != kNoKey) {
+                return key;
+            }
+            Long queued = requests.poll();
+            if (queued == null && DriverStation.isDisabled()) {
+                queued = warmUpRequests.poll();
+            }
+            if (queued != null) {
+                return queued;
+            }
+            Thread.sleep(kIdlePollMillis);
+        }
+    }
+
+    /**
+     * Plan a path and wait for it. The start and goal are set one after the other, so a path is only accepted once its
+     * ends are within a cell of the requested ones.
+     *
+     * @return The waypoints between the start and the goal, or null if no path was found in time.
+     */
+    private static List<Translation2d> plan(Pathfinder planner, Translation2d start, Translation2d goal)
+            throws InterruptedException {
+        double cellSize = Constants.DrivebaseConstants.kPathCacheCellSizeMeters;
+        planner.setStartPosition(start);
+        planner.setGoalPosition(goal);
+        double deadline = Timer.getFPGATimestamp() + Constants.DrivebaseConstants.kPathCachePlanTimeoutSeconds;
+        while (Timer.getFPGATimestamp() < deadline) {
+            if (planner.isNewPathAvailable()) {
+                PathPlannerPath path = planner.getCurrentPath(kPlanConstraints, kPlanEndState);
+                if (path != null) {
+                    List<Waypoint> waypoints = path.getWaypoints();
+                    Translation2d first = waypoints.get(0).anchor();
+                    Translation2d last = waypoints.get(waypoints.size() - 1).anchor();
+                    if (first.getDistance(start) <= cellSize && last.getDistance(goal) <= cellSize) {
+                        List<Translation2d> interior = new ArrayList<>(Math.max(waypoints.size() - 2, 0));
+                        for (int i = 1; i < waypoints.size() - 1; i++) {
+                            interior.add(waypoints.get(i).anchor());
+                        }
+                        return List.copyOf(interior);
+                    }
+                }
+            }
+            Thread.sleep(kPollMillis);
+        }
+        return null;
+    }
+
+    private int indexOf(Pose2d goal) {
+        for (int i = 0; i < goals.length; i++) {
+            if (goals[i].getTranslation().getDistance(goal.getTranslation()) < 1e-3) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long key(int goal, Translation2d start) {
+        double cellSize = Constants.DrivebaseConstants.kPathCacheCellSizeMeters;
+        long cellX = Math.max(0, (long) Math.floor(start.getX() / cellSize));
+        long cellY = Math.max(0, (long) Math.floor(start.getY() / cellSize));
+        return ((long) goal << 32) | (cellX << 16) | cellY;
+    }
+
+    private static Translation2d cellCenter(long key) {
+        double cellSize = Constants.DrivebaseConstants.kPathCacheCellSizeMeters;
+        return new Translation2d(
+                (((key >>> 16) & 0xFFFF) + 0.5) * cellSize,
+                ((key & 0xFFFF) + 0.5) * cellSize);
+    }
+}
@@ -0,0 +1,121 @@
+package frc.robot.subsystems.swervedrive;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread. Used to hand vision data off the
+ * camera ingest threads without blocking the main robot loop.
+ *
+ * @param <E> Element type held by the queue.
+ */
+public final class SpscRingBuffer<E> {
+
+    /**
+     * Backing storage, length is always a power of two.
+     */
+    private final Object[] buffer;
+    /**
+     * Mask used to wrap sequence numbers into buffer indices.
+     */
+    private final int mask;
+    /**
+     * Next sequence to be read, only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Next sequence to be written, only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Count of elements dropped because the queue was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Create the ring buffer.
+     *
+     * @param capacity Minimum capacity, rounded up to the next power of two.
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Add an element to the queue. Must only be called from the producer thread.
+     *
+     * @param element Element to add.
+     * @return False if the queue was full and the element was dropped.
+     */
+    public boolean offer(E element) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() >= buffer.length) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        buffer[(int) (currentTail & mask)] = element;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest element from the queue. Must only be called from the consumer thread.
+     *
+     * @return The oldest element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+        if (currentHead >= tail.get()) {
+            return null;
+        }
+        int index = (int) (currentHead & mask);
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(currentHead + 1);
+        return element;
+    }
+
+    /**
+     * Look at a waiting element without removing it. Must only be called from the consumer thread.
+     *
+     * @param offset Position from the head of the queue, 0 is the oldest element.
+     * @return The element, or null if fewer than offset + 1 elements are waiting.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek(int offset) {
+        long sequence = head.get() + offset;
+        if (offset < 0 || sequence >= tail.get()) {
+            return null;
+        }
+        return (E) buffer[(int) (sequence & mask)];
+    }
+
+    /**
+     * Look at the oldest waiting element without removing it. Must only be called from the consumer thread.
+     *
+     * @return The oldest element, or null if the queue is empty.
+     */
+    public E peek() {
+        return peek(0);
+    }
+
+    /**
+     * Number of elements waiting in the queue. Only an estimate when read concurrently.
+     *
+     * @return Queue depth.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Number of elements dropped because the consumer fell behind.
+     *
+     * @return Dropped element count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
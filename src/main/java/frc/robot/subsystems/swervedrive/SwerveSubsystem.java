@@ -13,6 +13,7 @@ import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
 import com.pathplanner.lib.pathfinding.Pathfinder;
+import com.pathplanner.lib.pathfinding.Pathfinding;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
 import com.pathplanner.lib.util.DriveFeedforwards;
 import com.pathplanner.lib.util.swerve.SwerveSetpoint;
@@ -27,16 +28,19 @@ import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Config;
 import frc.robot.Constants;
 import frc.robot.commands.ProfileToPose;
 import frc.robot.subsystems.PoseSelector;
+import maniplib.LoopProfiler;
+import maniplib.ProfiledSubsystem;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import org.ironmaple.simulation.drivesims.SwerveDriveSimulation;
 import org.json.simple.parser.ParseException;
 import swervelib.SwerveController;
@@ -51,7 +55,10 @@ import swervelib.telemetry.SwerveDriveTelemetry.TelemetryVerbosity;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.DoubleSupplier;
@@ -59,7 +66,9 @@ import java.util.function.Supplier;
 
 import static edu.wpi.first.units.Units.Meter;
 
-public class SwerveSubsystem extends SubsystemBase {
+public class SwerveSubsystem extends ProfiledSubsystem {
+    private final Telemetry.NumberField maxAngularTelemetry = Telemetry.number("Max Angular", ManipTelemetry.HIGH);
+    private final LoopProfiler.Entry visionProfile = LoopProfiler.getEntry("Vision.updatePoseEstimation()");
 
     /**
      * Swerve drive object.
@@ -69,10 +78,58 @@ public class SwerveSubsystem extends SubsystemBase {
      * Enable vision odometry updates while driving.
      */
     private final boolean visionDriveTest = true;
+    /**
+     * How odometry and vision are updated when {@link SwerveSubsystem#visionDriveTest} is enabled. Stays
+     * {@link OdometryMode#SYNCHRONOUS} until {@link OdometryMode#THREADED} has been validated on the robot.
+     */
+    private final OdometryMode odometryMode = OdometryMode.SYNCHRONOUS;
     /**
      * PhotonVision class to keep an accurate odometry.
      */
     private Vision vision;
+    /**
+     * Thread running odometry and vision fusion in {@link OdometryMode#THREADED}.
+     */
+    private Notifier odometryThread;
+    /**
+     * Latest pose published by the odometry thread, so other threads can read it without taking the odometry lock.
+     */
+    private volatile Pose2d poseSnapshot = Pose2d.kZero;
+    /**
+     * Set while an alignment loop on another thread is the only writer of drive commands.
+     */
+    private volatile boolean driveHandedOff = false;
+    /**
+     * Paths to the {@link PoseSelector} targets, null until PathPlanner is set up.
+     */
+    private PathCache pathCache;
+    /**
+     * Target to plan ahead to, null when not planning ahead. The last target and start planned from are kept to tell
+     * when the plan is stale.
+     */
+    private Supplier<Pose2d> planAheadTarget = null;
+    /**
+     * Alliance the path cache was last warmed up for, null before the alliance is known.
+     */
+    private DriverStation.Alliance pathCacheAlliance = null;
+    private Pose2d lastPlanAheadTarget = null;
+    private Translation2d lastPlanAheadStart = null;
+
+    /**
+     * Ways to run odometry alongside vision.
+     */
+    public enum OdometryMode {
+        /**
+         * Odometry and vision fusion both run in {@link SwerveSubsystem#periodic()} at the robot loop rate.
+         */
+        SYNCHRONOUS,
+        /**
+         * Odometry runs on its own thread at {@link Constants.DrivebaseConstants#kOdometryPeriodSeconds}. The main loop
+         * gates vision estimates and hands them to the odometry thread, which fuses them right after each odometry
+         * update.
+         */
+        THREADED
+    }
 
     /**
      * Initialize {@link SwerveDrive} with the directory provided.
@@ -106,8 +163,15 @@ public class SwerveSubsystem extends SubsystemBase {
         // swerveDrive.pushOffsetsToEncoders(); // Set the absolute encoder to be used over the internal encoder and push the offsets onto it. Throws warning if not possible
         if (visionDriveTest) {
             setupPhotonVision();
-            // Stop the odometry thread if we are using vision that way we can synchronize updates better.
+            // Stop the YAGSL odometry thread, vision fusion has to be synchronized with odometry updates.
             swerveDrive.stopOdometryThread();
+            if (odometryMode == OdometryMode.THREADED) {
+                vision.startOdometryHandoff();
+                poseSnapshot = swerveDrive.getPose();
+                odometryThread = new Notifier(this::updateOdometryThreaded);
+                odometryThread.setName("Odometry");
+                odometryThread.startPeriodic(Constants.DrivebaseConstants.kOdometryPeriodSeconds);
+            }
         }
         setupPathPlanner();
         //RobotModeTriggers.autonomous().onTrue(Commands.runOnce(this::zeroGyroWithAlliance));
@@ -135,19 +199,94 @@ public class SwerveSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         // When vision is enabled we must manually update odometry in SwerveDrive
         if (visionDriveTest) {
-            swerveDrive.updateOdometry();
+            if (odometryMode == OdometryMode.SYNCHRONOUS) {
+                swerveDrive.updateOdometry();
+            }
+            visionProfile.start();
             vision.updatePoseEstimation(swerveDrive);
+            visionProfile.stop();
         }
-        SmartDashboard.putNumber("Max Angular", swerveDrive.getMaximumChassisAngularVelocity());
+        maxAngularTelemetry.set(swerveDrive.getMaximumChassisAngularVelocity());
+        updatePlanAhead();
+        warmUpPathCache();
 
-        if (!isMoving(0.01)) {
+        if (!driveHandedOff && !isMoving(0.01)) {
             lock();
         }
     }
 
+    /**
+     * Update odometry and fuse the vision estimates handed off by the main loop. Runs on the odometry thread.
+     */
+    private void updateOdometryThreaded() {
+        // Hold the lock across both so getPose() never sees odometry without its vision corrections. The lock is
+        // reentrant, updateOdometry and addVisionMeasurement take it again internally.
+        swerveDrive.odometryLock.lock();
+        try {
+            swerveDrive.updateOdometry();
+            vision.fuseHandoff(swerveDrive);
+            poseSnapshot = swerveDrive.swerveDrivePoseEstimator.getEstimatedPosition();
+        } finally {
+            swerveDrive.odometryLock.unlock();
+        }
+    }
+
+    /**
+     * Keep a path to a target planned while the driver is still choosing it, so driving there can start from the
+     * cached path. Plans again when the target changes or the robot has moved too far from where the last plan
+     * started.
+     *
+     * @param target Target the robot is likely to drive to next, offset by driveToPose the same way.
+     */
+    public void planAheadTo(Supplier<Pose2d> target) {
+        planAheadTarget = target;
+        lastPlanAheadTarget = null;
+    }
+
+    private void updatePlanAhead() {
+        if (pathCache == null || planAheadTarget == null) {
+            return;
+        }
+        Pose2d target = planAheadTarget.get();
+        Pose2d pose = getPose();
+        Translation2d start = pose.getTranslation();
+        if (!target.equals(lastPlanAheadTarget)
+                || start.getDistance(lastPlanAheadStart) > Constants.DrivebaseConstants.kPlanAheadDistanceMeters) {
+            pathCache.planAhead(pose, target.plus(Constants.DrivebaseConstants.kToPoseUpdateOffset));
+            lastPlanAheadTarget = target;
+            lastPlanAheadStart = start;
+        }
+    }
+
+    /**
+     * Warm up the path cache with the reef and coral station legs of the current alliance once it is known, again if
+     * it changes. The cache only plans them while disabled.
+     */
+    private void warmUpPathCache() {
+        if (pathCache == null) {
+            return;
+        }
+        Optional<DriverStation.Alliance> alliance = DriverStation.getAlliance();
+        if (alliance.isEmpty() || alliance.get() == pathCacheAlliance) {
+            return;
+        }
+        pathCacheAlliance = alliance.get();
+        boolean red = pathCacheAlliance == DriverStation.Alliance.Red;
+        List<Pose2d> reef = new ArrayList<>();
+        for (Pose2d target : PoseSelector.reefTargets(red)) {
+            reef.add(target.plus(Constants.DrivebaseConstants.kToPoseUpdateOffset));
+        }
+        List<Pose2d> station = new ArrayList<>();
+        for (Pose2d target : PoseSelector.stationTargets(red)) {
+            station.add(target.plus(Constants.DrivebaseConstants.kToPoseUpdateOffset));
+        }
+        pathCache.warmUp(reef, station);
+        pathCache.warmUp(station, reef);
+    }
+
     public boolean isMoving(double tolerance) {
         return
                 (getRobotVelocity().omegaRadiansPerSecond +
@@ -156,7 +295,7 @@ public class SwerveSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
     }
 
     /**
@@ -219,6 +358,15 @@ public class SwerveSubsystem extends SubsystemBase {
             e.printStackTrace();
         }
 
+        // Paths to every target can be cached, goals are offset the same way as in driveToPose. The legs driven in a
+        // match are warmed up once the alliance is known.
+        List<Pose2d> pathGoals = new ArrayList<>();
+        for (Pose2d target : PoseSelector.allTargets()) {
+            pathGoals.add(target.plus(Constants.DrivebaseConstants.kToPoseUpdateOffset));
+        }
+        pathCache = new PathCache(pathGoals);
+
+        Pathfinding.setPathfinder(new DStarLitePathfinder("Pathfinding"));
         //Preload PathPlanner Path finding
         // IF USING CUSTOM PATHFINDER ADD BEFORE THIS LINE
         PathfindingCommand.warmupCommand().schedule();
@@ -258,10 +406,7 @@ public class SwerveSubsystem extends SubsystemBase {
                 Constants.DrivebaseConstants.kToPoseUpdateOffset);
         return
                 // Path find to pose
-                AutoBuilder.pathfindToPose(
-                                alignToTag,
-                                constraints,
-                                Constants.DrivebaseConstants.kPathfindEndGoalVelocity) // Goal end velocity in meters/sec
+                pathfindToPose(alignToTag, constraints)
                         // Until within distanceUntilPID constant.
                         .until(() -> poseIsNear(alignToTag, getPose(),
                                 Constants.DrivebaseConstants.kDistanceUntilPID,
@@ -295,16 +440,34 @@ public class SwerveSubsystem extends SubsystemBase {
                 Constants.DrivebaseConstants.kToPoseUpdateOffset);
         return
                 // Path find to pose
-                AutoBuilder.pathfindToPose(
-                                alignToTag,
-                                constraints,
-                                Constants.DrivebaseConstants.kPathfindEndGoalVelocity) // Goal end velocity in meters/sec
+                pathfindToPose(alignToTag, constraints)
                         // Until within distanceUntilPID constant.
                         .until(() -> poseIsNear(alignToTag, getPose(),
                                 Constants.DrivebaseConstants.kDistanceUntilPID,
                                 Constants.DrivebaseConstants.kRotationGoalBeforePID));
     }
 
+    /**
+     * Follow a cached path to the goal when there is one for the current cell, otherwise path find live.
+     *
+     * @param goal        Pose to drive to.
+     * @param constraints Path constraints.
+     * @return Path following command
+     */
+    private Command pathfindToPose(Pose2d goal, PathConstraints constraints) {
+        if (pathCache != null) {
+            Optional<PathPlannerPath> path = pathCache.getPath(getPose(), goal, constraints,
+                    Constants.DrivebaseConstants.kPathfindEndGoalVelocity);
+            if (path.isPresent()) {
+                return AutoBuilder.followPath(path.get());
+            }
+        }
+        return AutoBuilder.pathfindToPose(
+                goal,
+                constraints,
+                Constants.DrivebaseConstants.kPathfindEndGoalVelocity); // Goal end velocity in meters/sec
+    }
+
 
 
     public Command driveToReef(PoseSelector poseSelector) {
@@ -671,6 +834,27 @@ public class SwerveSubsystem extends SubsystemBase {
         return swerveDrive.getPose();
     }
 
+    /**
+     * Gets the current pose without waiting on the odometry thread, safe to call from any thread. Falls back to
+     * {@link SwerveSubsystem#getPose()} when odometry is not threaded.
+     *
+     * @return The robot's pose as of the last odometry update
+     */
+    public Pose2d getPoseSnapshot() {
+        return odometryThread != null ? poseSnapshot : getPose();
+    }
+
+    /**
+     * Hand drive commands over to a loop running on another thread. While handed off that loop must be the only
+     * caller of {@link SwerveSubsystem#drive(ChassisSpeeds)} and {@link SwerveSubsystem#periodic()} stops locking the
+     * wheels.
+     *
+     * @param handedOff True to hand off, false once the other loop has stopped.
+     */
+    public void setDriveHandedOff(boolean handedOff) {
+        driveHandedOff = handedOff;
+    }
+
     /**
      * Set chassis speeds with closed-loop velocity control.
      *
@@ -0,0 +1,135 @@
+package frc.robot.subsystems.swervedrive;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * Dense lookup table of AprilTag poses indexed by fiducial ID. Built once from an {@link AprilTagFieldLayout} so hot
+ * paths can read tag positions without the {@link java.util.Optional} and {@link Pose2d} allocations of
+ * {@link AprilTagFieldLayout#getTagPose(int)}.
+ */
+public final class TagTable {
+
+    /**
+     * Whether each fiducial ID exists on the field.
+     */
+    private final boolean[] present;
+    /**
+     * Field X of each tag in meters.
+     */
+    private final double[] x;
+    /**
+     * Field Y of each tag in meters.
+     */
+    private final double[] y;
+    /**
+     * Field Z of each tag in meters.
+     */
+    private final double[] z;
+    /**
+     * Yaw of each tag in radians.
+     */
+    private final double[] yaw;
+    /**
+     * Cached 2d pose of each tag, null where no tag exists.
+     */
+    private final Pose2d[] pose2d;
+
+    /**
+     * Build the table from a field layout.
+     *
+     * @param layout Field layout to read the tags from.
+     */
+    public TagTable(AprilTagFieldLayout layout) {
+        int maxId = 0;
+        for (AprilTag tag : layout.getTags()) {
+            maxId = Math.max(maxId, tag.ID);
+        }
+        present = new boolean[maxId + 1];
+        x = new double[maxId + 1];
+        y = new double[maxId + 1];
+        z = new double[maxId + 1];
+        yaw = new double[maxId + 1];
+        pose2d = new Pose2d[maxId + 1];
+        for (AprilTag tag : layout.getTags()) {
+            present[tag.ID] = true;
+            x[tag.ID] = tag.pose.getX();
+            y[tag.ID] = tag.pose.getY();
+            z[tag.ID] = tag.pose.getZ();
+            yaw[tag.ID] = tag.pose.getRotation().getZ();
+            pose2d[tag.ID] = tag.pose.toPose2d();
+        }
+    }
+
+    /**
+     * Check if a tag exists on the field.
+     *
+     * @param id Fiducial ID.
+     * @return True if the tag is in the layout.
+     */
+    public boolean hasTag(int id) {
+        return id >= 0 && id < present.length && present[id];
+    }
+
+    /**
+     * @param id Fiducial ID, must exist.
+     * @return Field X of the tag in meters.
+     */
+    public double getX(int id) {
+        return x[id];
+    }
+
+    /**
+     * @param id Fiducial ID, must exist.
+     * @return Field Y of the tag in meters.
+     */
+    public double getY(int id) {
+        return y[id];
+    }
+
+    /**
+     * @param id Fiducial ID, must exist.
+     * @return Field Z of the tag in meters.
+     */
+    public double getZ(int id) {
+        return z[id];
+    }
+
+    /**
+     * @param id Fiducial ID, must exist.
+     * @return Yaw of the tag in radians.
+     */
+    public double getYaw(int id) {
+        return yaw[id];
+    }
+
+    /**
+     * Get the cached 2d pose of a tag.
+     *
+     * @param id Fiducial ID.
+     * @return The tag pose, or null if the tag does not exist.
+     */
+    public Pose2d getPose2d(int id) {
+        return hasTag(id) ? pose2d[id] : null;
+    }
+
+    /**
+     * Distance on the field from a point to a tag.
+     *
+     * @param id Fiducial ID, must exist.
+     * @param fieldX Field X of the point in meters.
+     * @param fieldY Field Y of the point in meters.
+     * @return Distance in meters.
+     */
+    public double getDistance(int id, double fieldX, double fieldY) {
+        return Math.hypot(x[id] - fieldX, y[id] - fieldY);
+    }
+
+    /**
+     * @return Largest fiducial ID in the table.
+     */
+    public int getMaxId() {
+        return present.length - 1;
+    }
+}
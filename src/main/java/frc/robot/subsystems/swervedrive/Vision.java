@@ -2,17 +2,22 @@ package frc.robot.subsystems.swervedrive;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
-import edu.wpi.first.networktables.NetworkTablesJNI;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import frc.robot.Constants;
 import frc.robot.Robot;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
 import org.photonvision.PhotonPoseEstimator;
@@ -32,8 +37,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
-import static edu.wpi.first.units.Units.*;
-
 
 /**
  * Example PhotonVision class to aid in the pursuit of accurate odometry. Taken from
@@ -46,6 +49,10 @@ public class Vision {
      */
     public static final AprilTagFieldLayout fieldLayout = AprilTagFieldLayout.loadField(
             AprilTagFields.k2025ReefscapeAndyMark);
+    /**
+     * Precomputed tag positions from {@link Vision#fieldLayout}, indexed by fiducial ID.
+     */
+    public static final TagTable tagTable = new TagTable(fieldLayout);
     /**
      * Ambiguity defined as a value between (0,1). Used in {@link Vision#filterPose}.
      */
@@ -66,6 +73,69 @@ public class Vision {
      * Field from {@link swervelib.SwerveDrive#field}
      */
     private Field2d field2d;
+    /**
+     * Cameras to merge measurements from, cached to avoid copying {@link Cameras#values()} every loop.
+     */
+    private final Cameras[] cameras = Cameras.values();
+    /**
+     * Poses of the tracked tags shown on the field, reused between updates.
+     */
+    private final List<Pose2d> trackedTargetPoses = new ArrayList<>();
+    /**
+     * Measurements left to merge from each camera this loop.
+     */
+    private final int[] remaining = new int[cameras.length];
+    /**
+     * Depth of each camera queue at the start of the merge, reported through {@link VisionMetrics}.
+     */
+    private final int[] queueDepth = new int[cameras.length];
+    /**
+     * Newest timestamp queued by the cameras before each camera in enum order.
+     */
+    private final double[] naiveNewest = new double[cameras.length];
+    /**
+     * Standard deviations handed to the pose estimator, reused for every measurement.
+     */
+    private final Matrix<N3, N1> fusionStdDevs = new Matrix<>(Nat.N3(), Nat.N1());
+    /**
+     * Gated estimates waiting for the odometry thread, null when fusing directly from the main loop.
+     */
+    private SpscRingBuffer<VisionMeasurement> odometryHandoff = null;
+    /**
+     * Standard deviations handed to the pose estimator by the odometry thread.
+     */
+    private final Matrix<N3, N1> handoffStdDevs = new Matrix<>(Nat.N3(), Nat.N1());
+    /**
+     * Newest timestamp fused into the pose estimator.
+     */
+    private double lastFusedTimestamp = Double.NEGATIVE_INFINITY;
+    /**
+     * Count of inserts the merge kept in order that enum order would have applied out of order.
+     */
+    private long outOfOrderAvoidedCount = 0;
+    /**
+     * Count of inserts older than an already fused estimate.
+     */
+    private long outOfOrderInsertCount = 0;
+    /**
+     * Count of gated estimates dropped because the odometry handoff queue was full.
+     */
+    private long handoffDroppedCount = 0;
+    /**
+     * Count of estimates rejected by {@link Vision#gate}, indexed by {@link RejectionReason#ordinal()}.
+     */
+    private final long[] rejectionCounts = new long[RejectionReason.values().length];
+    /**
+     * Estimates rejected in a row for disagreeing with odometry.
+     */
+    private int consecutiveMahalanobisRejections = 0;
+    private final Telemetry.NumberField outOfOrderAvoidedTelemetry =
+            Telemetry.number("Vision/OutOfOrderAvoided", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField outOfOrderInsertTelemetry =
+            Telemetry.number("Vision/OutOfOrderInserts", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField handoffDroppedTelemetry =
+            Telemetry.number("Vision/HandoffDropped", ManipTelemetry.HIGH);
+    private final Telemetry.NumberField[] rejectionTelemetry = new Telemetry.NumberField[RejectionReason.values().length];
 
 
     /**
@@ -77,6 +147,9 @@ public class Vision {
     public Vision(Supplier<Pose2d> currentPose, Field2d field) {
         this.currentPose = currentPose;
         this.field2d = field;
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejectionTelemetry[reason.ordinal()] = Telemetry.number(reason.key, ManipTelemetry.HIGH);
+        }
 
         if (Robot.isSimulation()) {
             visionSim = new VisionSystemSim("Vision");
@@ -88,6 +161,10 @@ public class Vision {
 
             openSimCameraViews();
         }
+
+        for (Cameras c : Cameras.values()) {
+            c.startIngest();
+        }
     }
 
     /**
@@ -99,9 +176,9 @@ public class Vision {
      * @return The target pose of the AprilTag.
      */
     public static Pose2d getAprilTagPose(int aprilTag, Transform2d robotOffset) {
-        Optional<Pose3d> aprilTagPose3d = fieldLayout.getTagPose(aprilTag);
-        if (aprilTagPose3d.isPresent()) {
-            return aprilTagPose3d.get().toPose2d().transformBy(robotOffset);
+        Pose2d aprilTagPose = tagTable.getPose2d(aprilTag);
+        if (aprilTagPose != null) {
+            return aprilTagPose.transformBy(robotOffset);
         } else {
             throw new RuntimeException("Cannot get AprilTag " + aprilTag + " from field " + fieldLayout.toString());
         }
@@ -109,7 +186,8 @@ public class Vision {
     }
 
     /**
-     * Update the pose estimation inside of {@link SwerveDrive} with all of the given poses.
+     * Update the pose estimation inside of {@link SwerveDrive} with all of the given poses. Pose estimation itself runs
+     * on each camera's ingest thread, this only drains the finished estimates into the {@link SwerveDrive}.
      *
      * @param swerveDrive {@link SwerveDrive} instance.
      */
@@ -124,42 +202,237 @@ public class Vision {
              */
             visionSim.update(swerveDrive.getSimulationDriveTrainPose().get());
         }
-        for (Cameras camera : Cameras.values()) {
-            Optional<EstimatedRobotPose> poseEst = getEstimatedGlobalPose(camera);
-            if (poseEst.isPresent()) {
-                var pose = poseEst.get();
-                swerveDrive.addVisionMeasurement(pose.estimatedPose.toPose2d(),
-                        pose.timestampSeconds,
-                        camera.curStdDevs);
+        VisionMeasurement latest = mergeMeasurements(swerveDrive);
+        if (Robot.isSimulation()) {
+            Field2d debugField = visionSim.getDebugField();
+            if (latest != null) {
+                debugField.getObject("VisionEstimation").setPose(latest.estimate.estimatedPose.toPose2d());
+            } else {
+                debugField.getObject("VisionEstimation").setPoses();
             }
         }
 
     }
 
     /**
-     * Generates the estimated robot pose. Returns empty if:
-     * <ul>
-     *  <li> No Pose Estimates could be generated</li>
-     * <li> The generated pose estimate was considered not accurate</li>
-     * </ul>
+     * K-way merge of the per-camera queues into one stream ordered by capture time, fused oldest first so the pose
+     * estimator never has to replay more of its odometry buffer than necessary. Each camera queue is already in
+     * timestamp order, so only the heads need comparing.
+     *
+     * @param swerveDrive {@link SwerveDrive} to fuse the measurements into.
+     * @return The newest measurement fused, or null if none were waiting.
+     */
+    private VisionMeasurement mergeMeasurements(SwerveDrive swerveDrive) {
+        // Only merge what is queued right now, the ingest threads can keep adding while this runs.
+        double newestBefore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < cameras.length; i++) {
+            remaining[i] = cameras[i].measurements.size();
+            queueDepth[i] = remaining[i];
+            // Anything from a later camera older than this would have been applied out of order in enum order.
+            naiveNewest[i] = newestBefore;
+            VisionMeasurement last = cameras[i].measurements.peek(remaining[i] - 1);
+            if (last != null) {
+                newestBefore = Math.max(newestBefore, last.estimate.timestampSeconds);
+            }
+        }
+
+        double now = Timer.getFPGATimestamp();
+        double yawRate = swerveDrive.getRobotVelocity().omegaRadiansPerSecond;
+        VisionMeasurement latest = null;
+        while (true) {
+            int next = -1;
+            double nextTimestamp = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < cameras.length; i++) {
+                if (remaining[i] > 0) {
+                    double timestamp = cameras[i].measurements.peek().estimate.timestampSeconds;
+                    if (timestamp < nextTimestamp) {
+                        next = i;
+                        nextTimestamp = timestamp;
+                    }
+                }
+            }
+            if (next == -1) {
+                break;
+            }
+            VisionMeasurement measurement = cameras[next].measurements.poll();
+            remaining[next]--;
+
+            RejectionReason rejection = gate(measurement, swerveDrive, yawRate);
+            if (rejection != null) {
+                rejectionCounts[rejection.ordinal()]++;
+                continue;
+            }
+
+            if (odometryHandoff != null) {
+                if (!odometryHandoff.offer(measurement)) {
+                    // The odometry thread is behind, the estimate is lost rather than fused.
+                    handoffDroppedCount++;
+                    continue;
+                }
+            } else {
+                fuse(measurement, swerveDrive, fusionStdDevs);
+            }
+
+            if (nextTimestamp < naiveNewest[next]) {
+                outOfOrderAvoidedCount++;
+            }
+            if (nextTimestamp < lastFusedTimestamp) {
+                outOfOrderInsertCount++;
+            }
+            lastFusedTimestamp = Math.max(lastFusedTimestamp, nextTimestamp);
+            cameras[next].metrics.recordFusion(nextTimestamp, now);
+            latest = measurement;
+        }
+        for (int i = 0; i < cameras.length; i++) {
+            cameras[i].metrics.publish(now, queueDepth[i]);
+        }
+        outOfOrderAvoidedTelemetry.set(outOfOrderAvoidedCount);
+        outOfOrderInsertTelemetry.set(outOfOrderInsertCount);
+        handoffDroppedTelemetry.set(handoffDroppedCount);
+        for (int i = 0; i < rejectionTelemetry.length; i++) {
+            rejectionTelemetry[i].set(rejectionCounts[i]);
+        }
+        return latest;
+    }
+
+    /**
+     * Add an estimate to the pose estimator.
+     *
+     * @param measurement Estimate to fuse.
+     * @param swerveDrive {@link SwerveDrive} to fuse the estimate into.
+     * @param stdDevs     Matrix owned by the calling thread to pass the standard deviations in.
+     */
+    private static void fuse(VisionMeasurement measurement, SwerveDrive swerveDrive, Matrix<N3, N1> stdDevs) {
+        stdDevs.set(0, 0, measurement.stdDevX);
+        stdDevs.set(1, 0, measurement.stdDevY);
+        stdDevs.set(2, 0, measurement.stdDevTheta);
+        swerveDrive.addVisionMeasurement(measurement.estimate.estimatedPose.toPose2d(),
+                measurement.estimate.timestampSeconds,
+                stdDevs);
+    }
+
+    /**
+     * Hand gated estimates to the odometry thread instead of fusing them from the main loop. The odometry thread must
+     * then call {@link Vision#fuseHandoff(SwerveDrive)} after every odometry update.
+     */
+    public void startOdometryHandoff() {
+        if (odometryHandoff == null) {
+            odometryHandoff = new SpscRingBuffer<>(Constants.VisionConstants.kMeasurementQueueCapacity);
+        }
+    }
+
+    /**
+     * Fuse every estimate handed off by the main loop, oldest first. Must only be called from the odometry thread,
+     * while holding {@link SwerveDrive#odometryLock} so readers never see odometry without its vision corrections.
+     *
+     * @param swerveDrive {@link SwerveDrive} to fuse the estimates into.
+     */
+    public void fuseHandoff(SwerveDrive swerveDrive) {
+        if (odometryHandoff == null) {
+            return;
+        }
+        VisionMeasurement measurement;
+        while ((measurement = odometryHandoff.poll()) != null) {
+            fuse(measurement, swerveDrive, handoffStdDevs);
+        }
+    }
+
+    /**
+     * Check an estimate before it is fused into the pose estimator.
+     *
+     * @param measurement Estimate to check.
+     * @param swerveDrive {@link SwerveDrive} the estimate would be fused into.
+     * @param yawRate     Current robot yaw rate in radians per second.
+     * @return The reason to reject the estimate, or null if it can be fused.
+     */
+    private RejectionReason gate(VisionMeasurement measurement, SwerveDrive swerveDrive, double yawRate) {
+        Pose3d estimatedPose = measurement.estimate.estimatedPose;
+        double x = estimatedPose.getX();
+        double y = estimatedPose.getY();
+
+        if (Math.abs(yawRate) > Constants.VisionConstants.kMaxYawRateRadiansPerSecond) {
+            return RejectionReason.YAW_RATE;
+        }
+        double margin = Constants.VisionConstants.kFieldBorderMargin;
+        if (x < -margin || x > fieldLayout.getFieldLength() + margin
+                || y < -margin || y > fieldLayout.getFieldWidth() + margin) {
+            return RejectionReason.FIELD_BOUNDS;
+        }
+        if (Math.abs(estimatedPose.getZ()) > Constants.VisionConstants.kMaxZError) {
+            return RejectionReason.Z_HEIGHT;
+        }
+
+        // Compare against odometry at the capture time. The estimator does not expose its covariance, so the
+        // measurement variance is combined with a fixed odometry variance instead.
+        Pose2d odometryPose;
+        swerveDrive.odometryLock.lock();
+        try {
+            odometryPose = swerveDrive.swerveDrivePoseEstimator.sampleAt(measurement.estimate.timestampSeconds)
+                    .orElseGet(swerveDrive.swerveDrivePoseEstimator::getEstimatedPosition);
+        } finally {
+            swerveDrive.odometryLock.unlock();
+        }
+        double odometryVarianceXY = Constants.VisionConstants.kOdometryStdDevXY
+                * Constants.VisionConstants.kOdometryStdDevXY;
+        double odometryVarianceTheta = Constants.VisionConstants.kOdometryStdDevTheta
+                * Constants.VisionConstants.kOdometryStdDevTheta;
+        double dx = x - odometryPose.getX();
+        double dy = y - odometryPose.getY();
+        double dTheta = MathUtil.angleModulus(
+                estimatedPose.getRotation().getZ() - odometryPose.getRotation().getRadians());
+        double distanceSquared =
+                dx * dx / (measurement.stdDevX * measurement.stdDevX + odometryVarianceXY)
+                        + dy * dy / (measurement.stdDevY * measurement.stdDevY + odometryVarianceXY)
+                        + dTheta * dTheta / (measurement.stdDevTheta * measurement.stdDevTheta + odometryVarianceTheta);
+        if (distanceSquared > Constants.VisionConstants.kMaxMahalanobisDistanceSquared) {
+            // If vision keeps disagreeing, odometry is more likely the one that is wrong.
+            consecutiveMahalanobisRejections++;
+            if (consecutiveMahalanobisRejections <= Constants.VisionConstants.kMaxConsecutiveMahalanobisRejections) {
+                return RejectionReason.MAHALANOBIS;
+            }
+        }
+        consecutiveMahalanobisRejections = 0;
+        return null;
+    }
+
+    /**
+     * Number of estimates rejected before fusion for a reason.
+     *
+     * @param reason Reason the estimates were rejected.
+     * @return Rejected estimate count.
+     */
+    public long getRejectionCount(RejectionReason reason) {
+        return rejectionCounts[reason.ordinal()];
+    }
+
+    /**
+     * Number of estimates the merge applied in order that would have been applied out of order when draining the
+     * cameras one after another.
+     *
+     * @return Out-of-order inserts avoided by the merge.
+     */
+    public long getOutOfOrderAvoidedCount() {
+        return outOfOrderAvoidedCount;
+    }
+
+    /**
+     * Number of estimates fused with a timestamp older than an estimate already fused. These arrive after a newer frame
+     * was already applied and still force the pose estimator to replay.
      *
+     * @return Out-of-order inserts that still happened.
+     */
+    public long getOutOfOrderInsertCount() {
+        return outOfOrderInsertCount;
+    }
+
+    /**
+     * Get the latest estimated robot pose produced by a camera's ingest thread.
+     *
+     * @param camera Camera to check.
      * @return an {@link EstimatedRobotPose} with an estimated pose, timestamp, and targets used to create the estimate
      */
     public Optional<EstimatedRobotPose> getEstimatedGlobalPose(Cameras camera) {
-        Optional<EstimatedRobotPose> poseEst = camera.getEstimatedGlobalPose();
-        if (Robot.isSimulation()) {
-            Field2d debugField = visionSim.getDebugField();
-            // Uncomment to enable outputting of vision targets in sim.
-            poseEst.ifPresentOrElse(
-                    est ->
-                            debugField
-                                    .getObject("VisionEstimation")
-                                    .setPose(est.estimatedPose.toPose2d()),
-                    () -> {
-                        debugField.getObject("VisionEstimation").setPoses();
-                    });
-        }
-        return poseEst;
+        return camera.estimatedRobotPose;
     }
 
 
@@ -210,8 +483,11 @@ public class Vision {
      * @return Distance
      */
     public double getDistanceFromAprilTag(int id) {
-        Optional<Pose3d> tag = fieldLayout.getTagPose(id);
-        return tag.map(pose3d -> PhotonUtils.getDistanceToPose(currentPose.get(), pose3d.toPose2d())).orElse(-1.0);
+        if (!tagTable.hasTag(id)) {
+            return -1.0;
+        }
+        Pose2d pose = currentPose.get();
+        return tagTable.getDistance(id, pose.getX(), pose.getY());
     }
 
     /**
@@ -222,18 +498,7 @@ public class Vision {
      * @return Tracked target.
      */
     public PhotonTrackedTarget getTargetFromId(int id, Cameras camera) {
-        PhotonTrackedTarget target = null;
-        for (PhotonPipelineResult result : camera.resultsList) {
-            if (result.hasTargets()) {
-                for (PhotonTrackedTarget i : result.getTargets()) {
-                    if (i.getFiducialId() == id) {
-                        return i;
-                    }
-                }
-            }
-        }
-        return target;
-
+        return camera.results.getTarget(id);
     }
 
     /**
@@ -267,25 +532,150 @@ public class Vision {
      */
     public void updateVisionField() {
 
-        List<PhotonTrackedTarget> targets = new ArrayList<PhotonTrackedTarget>();
-        for (Cameras c : Cameras.values()) {
-            if (!c.resultsList.isEmpty()) {
-                PhotonPipelineResult latest = c.resultsList.get(0);
-                if (latest.hasTargets()) {
-                    targets.addAll(latest.targets);
+        trackedTargetPoses.clear();
+        for (Cameras c : cameras) {
+            PhotonPipelineResult latest = c.results.latest;
+            if (latest != null) {
+                for (int i = 0; i < latest.targets.size(); i++) {
+                    Pose2d targetPose = tagTable.getPose2d(latest.targets.get(i).getFiducialId());
+                    if (targetPose != null) {
+                        trackedTargetPoses.add(targetPose);
+                    }
                 }
             }
         }
 
-        List<Pose2d> poses = new ArrayList<>();
-        for (PhotonTrackedTarget target : targets) {
-            if (fieldLayout.getTagPose(target.getFiducialId()).isPresent()) {
-                Pose2d targetPose = fieldLayout.getTagPose(target.getFiducialId()).get().toPose2d();
-                poses.add(targetPose);
+        field2d.getObject("tracked targets").setPoses(trackedTargetPoses);
+    }
+
+    /**
+     * Reasons an estimate can be rejected before fusion.
+     */
+    public enum RejectionReason {
+        /**
+         * Too far from odometry for the combined uncertainty.
+         */
+        MAHALANOBIS("Vision/Rejected/Mahalanobis"),
+        /**
+         * Outside of the field walls.
+         */
+        FIELD_BOUNDS("Vision/Rejected/FieldBounds"),
+        /**
+         * Floating above or sunk below the carpet.
+         */
+        Z_HEIGHT("Vision/Rejected/ZHeight"),
+        /**
+         * Robot spinning too fast for the frame to be trusted.
+         */
+        YAW_RATE("Vision/Rejected/YawRate");
+
+        /**
+         * Dashboard key the rejection count is published under.
+         */
+        private final String key;
+
+        RejectionReason(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A single pose estimate from a camera, timestamped with the capture time of its frame.
+     */
+    static final class VisionMeasurement {
+        /**
+         * Camera which produced the estimate.
+         */
+        final Cameras camera;
+        /**
+         * Estimated robot pose from PhotonVision.
+         */
+        final EstimatedRobotPose estimate;
+        /**
+         * Standard deviations to fuse the estimate with, copied out of the camera's reused matrix.
+         */
+        final double stdDevX;
+        final double stdDevY;
+        final double stdDevTheta;
+
+        VisionMeasurement(Cameras camera, EstimatedRobotPose estimate, Matrix<N3, N1> stdDevs) {
+            this.camera = camera;
+            this.estimate = estimate;
+            this.stdDevX = stdDevs.get(0, 0);
+            this.stdDevY = stdDevs.get(1, 0);
+            this.stdDevTheta = stdDevs.get(2, 0);
+        }
+    }
+
+    /**
+     * One batch of results from a camera with its lookups computed once by the ingest thread. Never modified after
+     * being published.
+     */
+    static final class CameraResults {
+        /**
+         * Batch with no results.
+         */
+        static final CameraResults EMPTY = new CameraResults(new ArrayList<>());
+
+        /**
+         * Results of the batch sorted by timestamp, oldest first.
+         */
+        final List<PhotonPipelineResult> results;
+        /**
+         * Result with the least ambiguous best target, null if no result has targets.
+         */
+        final PhotonPipelineResult best;
+        /**
+         * Result with the newest timestamp, null if the batch is empty.
+         */
+        final PhotonPipelineResult latest;
+        /**
+         * Newest sighting of each fiducial in the batch, indexed by fiducial ID.
+         */
+        private final PhotonTrackedTarget[] targetsById;
+
+        /**
+         * Build the lookups for a batch.
+         *
+         * @param results Results sorted by timestamp, oldest first.
+         */
+        CameraResults(List<PhotonPipelineResult> results) {
+            this.results = results;
+            targetsById = new PhotonTrackedTarget[tagTable.getMaxId() + 1];
+
+            PhotonPipelineResult bestResult = null;
+            double bestAmbiguity = Double.MAX_VALUE;
+            for (int i = 0; i < results.size(); i++) {
+                PhotonPipelineResult result = results.get(i);
+                if (!result.hasTargets()) {
+                    continue;
+                }
+                double ambiguity = result.getBestTarget().getPoseAmbiguity();
+                // Ambiguity is -1 when it could not be computed, only prefer results with a real value.
+                if (bestResult == null || (ambiguity > 0 && ambiguity < bestAmbiguity)) {
+                    bestResult = result;
+                    bestAmbiguity = ambiguity > 0 ? ambiguity : Double.MAX_VALUE;
+                }
+                for (int j = 0; j < result.targets.size(); j++) {
+                    PhotonTrackedTarget target = result.targets.get(j);
+                    int id = target.getFiducialId();
+                    if (id >= 0 && id < targetsById.length) {
+                        // Later results overwrite earlier ones, so the newest sighting wins.
+                        targetsById[id] = target;
+                    }
+                }
             }
+            best = bestResult;
+            latest = results.isEmpty() ? null : results.get(results.size() - 1);
         }
 
-        field2d.getObject("tracked targets").setPoses(poses);
+        /**
+         * @param id Fiducial ID.
+         * @return Newest sighting of the fiducial in the batch, or null if it was not seen.
+         */
+        PhotonTrackedTarget getTarget(int id) {
+            return id >= 0 && id < targetsById.length ? targetsById[id] : null;
+        }
     }
 
     /**
@@ -321,6 +711,10 @@ public class Vision {
          * Latency alert to use when high latency is detected.
          */
         public final Alert latencyAlert;
+        /**
+         * Throughput and latency metrics for this camera, raises {@link Cameras#latencyAlert}.
+         */
+        public final VisionMetrics metrics;
         /**
          * Camera instance for comms.
          */
@@ -342,26 +736,36 @@ public class Vision {
          */
         private final Transform3d robotToCamTransform;
         /**
-         * Current standard deviations used.
+         * Name of the camera in the PV UI.
+         */
+        private final String cameraName;
+        /**
+         * Estimates produced by the ingest thread, drained by the main loop.
          */
-        public Matrix<N3, N1> curStdDevs;
+        private final SpscRingBuffer<VisionMeasurement> measurements =
+                new SpscRingBuffer<>(Constants.VisionConstants.kMeasurementQueueCapacity);
+        /**
+         * Current standard deviations used, updated in place. Only touched by the ingest thread.
+         */
+        public final Matrix<N3, N1> curStdDevs = new Matrix<>(Nat.N3(), Nat.N1());
         /**
          * Estimated robot pose.
          */
-        public Optional<EstimatedRobotPose> estimatedRobotPose = Optional.empty();
+        public volatile Optional<EstimatedRobotPose> estimatedRobotPose = Optional.empty();
 
         /**
          * Simulated camera instance which only exists during simulations.
          */
         public PhotonCameraSim cameraSim;
         /**
-         * Results list to be updated periodically and cached to avoid unnecessary queries.
+         * Latest batch of results published by the ingest thread, cached to avoid unnecessary queries. Replaced as a
+         * whole whenever new results arrive.
          */
-        public List<PhotonPipelineResult> resultsList = new ArrayList<>();
+        volatile CameraResults results = CameraResults.EMPTY;
         /**
-         * Last read from the camera timestamp to prevent lag due to slow data fetches.
+         * Thread which drains camera results and runs pose estimation off the main loop.
          */
-        private double lastReadTimestamp = Microseconds.of(NetworkTablesJNI.now()).in(Seconds);
+        private Notifier ingestThread;
 
         /**
          * Construct a Photon Camera class with help. Standard deviations are fake values, experiment and determine
@@ -375,7 +779,10 @@ public class Vision {
          */
         Cameras(String name, Rotation3d robotToCamRotation, Translation3d robotToCamTranslation,
                 Matrix<N3, N1> singleTagStdDevs, Matrix<N3, N1> multiTagStdDevsMatrix) {
-            latencyAlert = new Alert("'" + name + "' Camera is experiencing high latency.", AlertType.kWarning);
+            this.cameraName = name;
+            latencyAlert = new Alert("'" + name + "' Camera is experiencing high latency or not delivering estimates.",
+                    AlertType.kWarning);
+            metrics = new VisionMetrics(name, latencyAlert);
 
             camera = new PhotonCamera(name);
 
@@ -425,21 +832,7 @@ public class Vision {
          * @return The result in the cache with the least ambiguous best tracked target. This is not the most recent result!
          */
         public Optional<PhotonPipelineResult> getBestResult() {
-            if (resultsList.isEmpty()) {
-                return Optional.empty();
-            }
-
-            PhotonPipelineResult bestResult = resultsList.get(0);
-            double amiguity = bestResult.getBestTarget().getPoseAmbiguity();
-            double currentAmbiguity = 0;
-            for (PhotonPipelineResult result : resultsList) {
-                currentAmbiguity = result.getBestTarget().getPoseAmbiguity();
-                if (currentAmbiguity < amiguity && currentAmbiguity > 0) {
-                    bestResult = result;
-                    amiguity = currentAmbiguity;
-                }
-            }
-            return Optional.of(bestResult);
+            return Optional.ofNullable(results.best);
         }
 
         /**
@@ -448,66 +841,71 @@ public class Vision {
          * @return Empty optional if nothing is found. Latest result if something is there.
          */
         public Optional<PhotonPipelineResult> getLatestResult() {
-            return resultsList.isEmpty() ? Optional.empty() : Optional.of(resultsList.get(0));
+            return Optional.ofNullable(results.latest);
         }
 
         /**
-         * Get the estimated robot pose. Updates the current robot pose estimation, standard deviations, and flushes the
-         * cache of results.
-         *
-         * @return Estimated pose.
+         * Start the ingest thread for this camera. Safe to call more than once.
          */
-        public Optional<EstimatedRobotPose> getEstimatedGlobalPose() {
-            updateUnreadResults();
-            return estimatedRobotPose;
+        public void startIngest() {
+            if (ingestThread == null) {
+                ingestThread = new Notifier(this::updateUnreadResults);
+                ingestThread.setName(cameraName + " Ingest");
+                ingestThread.startPeriodic(Constants.VisionConstants.kIngestPeriodSeconds);
+            }
         }
 
         /**
-         * Update the latest results, cached with a maximum refresh rate of 1req/15ms. Sorts the list by timestamp.
+         * Pull every unread result from the camera, sort the list by timestamp and run pose estimation on it. Runs on
+         * the ingest thread.
          */
         private void updateUnreadResults()
         {
-            double mostRecentTimestamp = resultsList.isEmpty() ? 0.0 : resultsList.get(0).getTimestampSeconds();
-            for (PhotonPipelineResult result : resultsList)
+            long start = System.nanoTime();
+            List<PhotonPipelineResult> unreadResults =
+                    Robot.isReal() ? camera.getAllUnreadResults() : cameraSim.getCamera().getAllUnreadResults();
+            if (unreadResults.isEmpty())
             {
-                mostRecentTimestamp = Math.max(mostRecentTimestamp, result.getTimestampSeconds());
+                metrics.recordIngest(0, System.nanoTime() - start);
+                return;
             }
-
-            resultsList = Robot.isReal() ? camera.getAllUnreadResults() : cameraSim.getCamera().getAllUnreadResults();
-            resultsList.sort((PhotonPipelineResult a, PhotonPipelineResult b) -> {
+            unreadResults.sort((PhotonPipelineResult a, PhotonPipelineResult b) -> {
                 return a.getTimestampSeconds() >= b.getTimestampSeconds() ? 1 : -1;
             });
-            if (!resultsList.isEmpty())
-            {
-                updateEstimatedGlobalPose();
-            }
-
+            results = new CameraResults(unreadResults);
+            updateEstimatedGlobalPose(unreadResults);
+            metrics.recordIngest(unreadResults.size(), System.nanoTime() - start);
         }
 
         /**
-         * The latest estimated robot pose on the field from vision data. This may be empty. This should only be called once
-         * per loop.
+         * Run pose estimation on every result and publish each valid estimate to the main loop through the measurement
+         * queue.
          *
          * <p>Also includes updates for the standard deviations, which can (optionally) be retrieved with
          * {@link Cameras#updateEstimationStdDevs}
          *
-         * @return An {@link EstimatedRobotPose} with an estimated pose, estimate timestamp, and targets used for
-         * estimation.
+         * @param results Unread results sorted by timestamp.
          */
-        private void updateEstimatedGlobalPose()
+        private void updateEstimatedGlobalPose(List<PhotonPipelineResult> results)
         {
             Optional<EstimatedRobotPose> visionEst = Optional.empty();
-            for (var change : resultsList)
+            for (var change : results)
             {
                 visionEst = poseEstimator.update(change);
                 updateEstimationStdDevs(visionEst, change.getTargets());
+                if (visionEst.isPresent())
+                {
+                    // Every frame is fused with its own timestamp and standard deviations.
+                    measurements.offer(new VisionMeasurement(this, visionEst.get(), curStdDevs));
+                    estimatedRobotPose = visionEst;
+                }
             }
-            estimatedRobotPose = visionEst;
         }
 
         /**
          * Calculates new standard deviations This algorithm is a heuristic that creates dynamic standard deviations based
-         * on number of tags, estimation strategy, and distance from the tags.
+         * on number of tags, estimation strategy, and distance from the tags. Runs on primitives and writes into
+         * {@link Cameras#curStdDevs} in place so the vision hot path does not allocate.
          *
          * @param estimatedPose The estimated pose to guess standard deviations for.
          * @param targets       All targets in this camera frame
@@ -516,50 +914,57 @@ public class Vision {
                 Optional<EstimatedRobotPose> estimatedPose, List<PhotonTrackedTarget> targets) {
             if (estimatedPose.isEmpty()) {
                 // No pose input. Default to single-tag std devs
-                curStdDevs = singleTagStdDevs;
+                setCurStdDevs(singleTagStdDevs, 1.0);
 
             } else {
                 // Pose present. Start running Heuristic
-                var estStdDevs = singleTagStdDevs;
+                double estimatedX = estimatedPose.get().estimatedPose.getX();
+                double estimatedY = estimatedPose.get().estimatedPose.getY();
                 int numTags = 0;
                 double avgDist = 0;
 
                 // Precalculation - see how many tags we found, and calculate an average-distance metric
-                for (var tgt : targets) {
-                    var tagPose = poseEstimator.getFieldTags().getTagPose(tgt.getFiducialId());
-                    if (tagPose.isEmpty()) {
+                for (int i = 0; i < targets.size(); i++) {
+                    int id = targets.get(i).getFiducialId();
+                    if (!tagTable.hasTag(id)) {
                         continue;
                     }
                     numTags++;
-                    avgDist +=
-                            tagPose
-                                    .get()
-                                    .toPose2d()
-                                    .getTranslation()
-                                    .getDistance(estimatedPose.get().estimatedPose.toPose2d().getTranslation());
+                    avgDist += tagTable.getDistance(id, estimatedX, estimatedY);
                 }
 
                 if (numTags == 0) {
                     // No tags visible. Default to single-tag std devs
-                    curStdDevs = singleTagStdDevs;
+                    setCurStdDevs(singleTagStdDevs, 1.0);
                 } else {
                     // One or more tags visible, run the full heuristic.
                     avgDist /= numTags;
-                    // Decrease std devs if multiple targets are visible
-                    if (numTags > 1) {
-                        estStdDevs = multiTagStdDevs;
-                    }
-                    // Increase std devs based on (average) distance
                     if (numTags == 1 && avgDist > 4) {
-                        estStdDevs = VecBuilder.fill(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+                        // Too far away to trust a single tag.
+                        curStdDevs.set(0, 0, Double.MAX_VALUE);
+                        curStdDevs.set(1, 0, Double.MAX_VALUE);
+                        curStdDevs.set(2, 0, Double.MAX_VALUE);
                     } else {
-                        estStdDevs = estStdDevs.times(1 + (avgDist * avgDist / 30));
+                        // Decrease std devs if multiple targets are visible, increase based on (average) distance
+                        setCurStdDevs(numTags > 1 ? multiTagStdDevs : singleTagStdDevs,
+                                1 + (avgDist * avgDist / 30));
                     }
-                    curStdDevs = estStdDevs;
                 }
             }
         }
 
+        /**
+         * Overwrite {@link Cameras#curStdDevs} with scaled base standard deviations.
+         *
+         * @param base  Standard deviations to start from.
+         * @param scale Factor to multiply every standard deviation by.
+         */
+        private void setCurStdDevs(Matrix<N3, N1> base, double scale) {
+            curStdDevs.set(0, 0, base.get(0, 0) * scale);
+            curStdDevs.set(1, 0, base.get(1, 0) * scale);
+            curStdDevs.set(2, 0, base.get(2, 0) * scale);
+        }
+
 
     }
 
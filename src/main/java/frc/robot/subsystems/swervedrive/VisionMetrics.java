@@ -0,0 +1,194 @@
+package frc.robot.subsystems.swervedrive;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.DataLogManager;
+import frc.robot.Constants;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-camera throughput and latency instrumentation for {@link Vision}. Counters that the ingest thread touches are
+ * atomic, everything else is only used from the main loop. Values are published to NetworkTables under
+ * {@code Vision/<camera>} and appended to the {@link DataLog}.
+ */
+public final class VisionMetrics {
+
+    /**
+     * Upper edges of the latency histogram bins in milliseconds, the last bin catches everything above.
+     */
+    private static final double[] kLatencyBinEdgesMs = {10, 20, 30, 40, 50, 60, 80, 100, 150, 200};
+
+    /**
+     * Frames received from PhotonVision, incremented by the ingest thread.
+     */
+    private final AtomicLong framesReceived = new AtomicLong();
+    /**
+     * Nanoseconds the ingest thread spent fetching, sorting and estimating.
+     */
+    private final AtomicLong estimatorNanos = new AtomicLong();
+    /**
+     * Estimates fused into the pose estimator.
+     */
+    private long framesAccepted = 0;
+    /**
+     * Histogram of capture-to-fusion latency over the current rate window, one extra bin for overflow.
+     */
+    private final double[] latencyHistogram = new double[kLatencyBinEdgesMs.length + 1];
+    /**
+     * Sum and count of latencies in the current rate window, used to raise the latency alert.
+     */
+    private double windowLatencySum = 0;
+    private long windowLatencyCount = 0;
+    /**
+     * Counter values at the start of the current rate window.
+     */
+    private long windowStartReceived = 0;
+    private long windowStartAccepted = 0;
+    private double windowStartSeconds = Double.NaN;
+    /**
+     * Capture time of the newest fused frame, negative infinity before the first one.
+     */
+    private double newestCaptureSeconds = Double.NEGATIVE_INFINITY;
+    /**
+     * Estimator time at the previous publish, to report time spent per loop.
+     */
+    private long lastEstimatorNanos = 0;
+    /**
+     * Alert to raise while the camera is falling behind.
+     */
+    private final Alert latencyAlert;
+
+    private final DoublePublisher receivedRatePublisher;
+    private final DoublePublisher acceptedRatePublisher;
+    private final DoublePublisher latencyPublisher;
+    private final DoublePublisher estimatorTimePublisher;
+    private final IntegerPublisher queueDepthPublisher;
+    private final DoubleArrayPublisher histogramPublisher;
+
+    private final DoubleLogEntry receivedRateLog;
+    private final DoubleLogEntry acceptedRateLog;
+    private final DoubleLogEntry latencyLog;
+    private final DoubleLogEntry estimatorTimeLog;
+    private final IntegerLogEntry queueDepthLog;
+
+    /**
+     * Create the metrics for a camera.
+     *
+     * @param cameraName   Name of the camera, used for the NetworkTables and log paths.
+     * @param latencyAlert Alert to raise when latency crosses
+     *                     {@link Constants.VisionConstants#kLatencyAlertThresholdSeconds} or frames stop being fused.
+     */
+    public VisionMetrics(String cameraName, Alert latencyAlert) {
+        this.latencyAlert = latencyAlert;
+
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("Vision").getSubTable(cameraName);
+        receivedRatePublisher = table.getDoubleTopic("FramesReceivedPerSecond").publish();
+        acceptedRatePublisher = table.getDoubleTopic("FramesAcceptedPerSecond").publish();
+        latencyPublisher = table.getDoubleTopic("LatencyMs").publish();
+        estimatorTimePublisher = table.getDoubleTopic("EstimatorMsPerLoop").publish();
+        queueDepthPublisher = table.getIntegerTopic("QueueDepth").publish();
+        histogramPublisher = table.getDoubleArrayTopic("LatencyHistogram").publish();
+        table.getDoubleArrayTopic("LatencyHistogramEdgesMs").publish().set(kLatencyBinEdgesMs);
+
+        DataLog log = DataLogManager.getLog();
+        String logPath = "/Vision/" + cameraName + "/";
+        receivedRateLog = new DoubleLogEntry(log, logPath + "FramesReceivedPerSecond");
+        acceptedRateLog = new DoubleLogEntry(log, logPath + "FramesAcceptedPerSecond");
+        latencyLog = new DoubleLogEntry(log, logPath + "LatencyMs");
+        estimatorTimeLog = new DoubleLogEntry(log, logPath + "EstimatorMsPerLoop");
+        queueDepthLog = new IntegerLogEntry(log, logPath + "QueueDepth");
+    }
+
+    /**
+     * Record a batch of frames pulled from the camera. Called from the ingest thread.
+     *
+     * @param frames         Number of results received.
+     * @param elapsedNanos   Time spent fetching, sorting and estimating the batch.
+     */
+    void recordIngest(int frames, long elapsedNanos) {
+        framesReceived.addAndGet(frames);
+        estimatorNanos.addAndGet(elapsedNanos);
+    }
+
+    /**
+     * Record an estimate being fused into the pose estimator. Called from the main loop.
+     *
+     * @param captureSeconds Capture time of the frame, in FPGA time.
+     * @param nowSeconds     FPGA time of the fusion.
+     */
+    void recordFusion(double captureSeconds, double nowSeconds) {
+        double latencySeconds = nowSeconds - captureSeconds;
+        double latencyMs = latencySeconds * 1000.0;
+        framesAccepted++;
+        newestCaptureSeconds = Math.max(newestCaptureSeconds, captureSeconds);
+        windowLatencySum += latencySeconds;
+        windowLatencyCount++;
+
+        int bin = 0;
+        while (bin < kLatencyBinEdgesMs.length && latencyMs > kLatencyBinEdgesMs[bin]) {
+            bin++;
+        }
+        latencyHistogram[bin]++;
+        latencyLog.append(latencyMs);
+    }
+
+    /**
+     * Publish the metrics for this loop. Called from the main loop once per loop.
+     *
+     * @param nowSeconds FPGA time in seconds.
+     * @param queueDepth Estimates waiting in the camera queue at the start of the loop.
+     */
+    void publish(double nowSeconds, int queueDepth) {
+        long estimatorNow = estimatorNanos.get();
+        double estimatorMs = (estimatorNow - lastEstimatorNanos) / 1.0e6;
+        lastEstimatorNanos = estimatorNow;
+        estimatorTimePublisher.set(estimatorMs);
+        estimatorTimeLog.append(estimatorMs);
+        queueDepthPublisher.set(queueDepth);
+        queueDepthLog.append(queueDepth);
+
+        if (Double.isNaN(windowStartSeconds)) {
+            windowStartSeconds = nowSeconds;
+            return;
+        }
+        double windowSeconds = nowSeconds - windowStartSeconds;
+        if (windowSeconds < Constants.VisionConstants.kMetricsWindowSeconds) {
+            return;
+        }
+
+        long received = framesReceived.get();
+        double receivedRate = (received - windowStartReceived) / windowSeconds;
+        double acceptedRate = (framesAccepted - windowStartAccepted) / windowSeconds;
+        receivedRatePublisher.set(receivedRate);
+        acceptedRatePublisher.set(acceptedRate);
+        receivedRateLog.append(receivedRate);
+        acceptedRateLog.append(acceptedRate);
+        histogramPublisher.set(latencyHistogram);
+        Arrays.fill(latencyHistogram, 0);
+
+        // Raised every window the camera falls behind: nothing fused, a stale newest frame or a high average latency.
+        double threshold = Constants.VisionConstants.kLatencyAlertThresholdSeconds;
+        boolean fallingBehind = windowLatencyCount == 0 || nowSeconds - newestCaptureSeconds > threshold;
+        if (windowLatencyCount > 0) {
+            double averageLatency = windowLatencySum / windowLatencyCount;
+            latencyPublisher.set(averageLatency * 1000.0);
+            fallingBehind |= averageLatency > threshold;
+        }
+        latencyAlert.set(fallingBehind);
+
+        windowStartSeconds = nowSeconds;
+        windowStartReceived = received;
+        windowStartAccepted = framesAccepted;
+        windowLatencySum = 0;
+        windowLatencyCount = 0;
+    }
+}
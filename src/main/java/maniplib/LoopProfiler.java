@@ -0,0 +1,247 @@
+package maniplib;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low overhead timing of the robot loop. Each {@link Entry} keeps its most recent samples in a preallocated ring buffer
+ * and publishes p50, p99 and max to NetworkTables under {@code LoopProfiler/} and to the {@link DataLog}. Only meant
+ * to be used from the main robot thread.
+ */
+public final class LoopProfiler {
+
+    /**
+     * Samples kept per entry, about five seconds of 20ms loops.
+     */
+    private static final int kSampleCount = 256;
+    /**
+     * How often the percentiles are computed and published.
+     */
+    private static final double kPublishPeriodSeconds = 1.0;
+    /**
+     * Command to entry lookups kept before the cache is cleared, bounds memory when commands are created on the fly.
+     */
+    private static final int kMaxCachedCommands = 256;
+    /**
+     * Lateness allowed on top of the loop period before a loop counts as overrun, covers the wakeup jitter of the
+     * {@link edu.wpi.first.wpilibj.TimedRobot} notifier.
+     */
+    private static final long kOverrunToleranceNanos = 1_000_000;
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static final List<Entry> entryList = new ArrayList<>();
+    private static final Map<Command, Entry> commandEntries = new HashMap<>();
+    /**
+     * Scratch buffer the samples are sorted in when computing percentiles.
+     */
+    private static final long[] sorted = new long[kSampleCount];
+
+    /**
+     * Time from the start of one loop to the start of the next. This covers the whole {@code TimedRobot} iteration,
+     * the mode periodic methods and the SmartDashboard, LiveWindow and Shuffleboard updates included.
+     */
+    private static final Entry loopPeriodEntry = getEntry("LoopPeriod");
+    /**
+     * Time spent in {@code robotPeriodic()} alone, between {@link LoopProfiler#startLoop(double)} and
+     * {@link LoopProfiler#endLoop()}.
+     */
+    private static final Entry robotPeriodicEntry = getEntry("robotPeriodic()");
+    private static final IntegerPublisher overrunCountPublisher = table.getIntegerTopic("Overruns").publish();
+    private static final BooleanPublisher overranPublisher = table.getBooleanTopic("Overran").publish();
+    private static final DoubleLogEntry overrunLog = new DoubleLogEntry(DataLogManager.getLog(),
+            "/LoopProfiler/OverrunMs");
+
+    private static long overrunCount = 0;
+    /**
+     * Start of the previous loop, 0 before the first loop.
+     */
+    private static long lastLoopStartNanos = 0;
+    private static double lastPublishSeconds = 0;
+    /**
+     * Time the previous command finished executing, or the end of button polling for the first command.
+     */
+    private static long commandMark = 0;
+    private static boolean commandProfilingStarted = false;
+
+    private LoopProfiler() {
+    }
+
+    /**
+     * Get the entry with the given name, creating it the first time.
+     *
+     * @param name Name shown on the dashboard, e.g. {@code "ElevatorSubsystem.periodic()"}.
+     * @return The entry.
+     */
+    public static Entry getEntry(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry(name);
+            entries.put(name, entry);
+            entryList.add(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Time every scheduled command's {@code execute()}. Call once after all button bindings are created, since the
+     * start of the first command is marked by a binding at the end of the {@link CommandScheduler} button loop.
+     * Commands are timed between execute callbacks, so each sample also includes the previous command's
+     * {@code isFinished()}.
+     */
+    public static void startCommandProfiling() {
+        if (commandProfilingStarted) {
+            return;
+        }
+        commandProfilingStarted = true;
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.getDefaultButtonLoop().bind(() -> commandMark = System.nanoTime());
+        scheduler.onCommandExecute(command -> {
+            long now = System.nanoTime();
+            Entry entry = commandEntries.get(command);
+            if (entry == null) {
+                if (commandEntries.size() >= kMaxCachedCommands) {
+                    commandEntries.clear();
+                }
+                entry = getEntry(command.getName() + ".execute()");
+                commandEntries.put(command, entry);
+            }
+            entry.record(now - commandMark);
+            commandMark = now;
+        });
+    }
+
+    /**
+     * Mark the start of the robot loop and check the previous loop for an overrun. Call first in
+     * {@code robotPeriodic()}. A loop overran when this loop started more than the loop period after the previous one,
+     * which catches time spent anywhere in the iteration and not only in {@code robotPeriodic()}.
+     *
+     * @param periodSeconds Loop period of the robot.
+     */
+    public static void startLoop(double periodSeconds) {
+        long now = System.nanoTime();
+        if (lastLoopStartNanos != 0) {
+            long periodNanos = now - lastLoopStartNanos;
+            loopPeriodEntry.record(periodNanos);
+            boolean overran = periodNanos > (long) (periodSeconds * 1e9) + kOverrunToleranceNanos;
+            if (overran) {
+                overrunCount++;
+                overrunLog.append(periodNanos / 1e6);
+            }
+            overranPublisher.set(overran);
+        }
+        lastLoopStartNanos = now;
+        robotPeriodicEntry.start();
+    }
+
+    /**
+     * Mark the end of {@code robotPeriodic()} and publish the entries when due. Call last in
+     * {@code robotPeriodic()}.
+     */
+    public static void endLoop() {
+        robotPeriodicEntry.stop();
+
+        double now = Timer.getFPGATimestamp();
+        if (now - lastPublishSeconds >= kPublishPeriodSeconds) {
+            lastPublishSeconds = now;
+            overrunCountPublisher.set(overrunCount);
+            for (int i = 0; i < entryList.size(); i++) {
+                entryList.get(i).publish();
+            }
+        }
+    }
+
+    /**
+     * A timed section of the robot loop.
+     */
+    public static final class Entry {
+
+        private final long[] samples = new long[kSampleCount];
+        private int count = 0;
+        private int next = 0;
+        private long startNanos = 0;
+
+        private final DoublePublisher p50Publisher;
+        private final DoublePublisher p99Publisher;
+        private final DoublePublisher maxPublisher;
+        private final DoubleLogEntry p50Log;
+        private final DoubleLogEntry p99Log;
+        private final DoubleLogEntry maxLog;
+
+        private Entry(String name) {
+            NetworkTable entryTable = table.getSubTable(name);
+            p50Publisher = entryTable.getDoubleTopic("p50Ms").publish();
+            p99Publisher = entryTable.getDoubleTopic("p99Ms").publish();
+            maxPublisher = entryTable.getDoubleTopic("maxMs").publish();
+
+            DataLog log = DataLogManager.getLog();
+            String logPath = "/LoopProfiler/" + name + "/";
+            p50Log = new DoubleLogEntry(log, logPath + "p50Ms");
+            p99Log = new DoubleLogEntry(log, logPath + "p99Ms");
+            maxLog = new DoubleLogEntry(log, logPath + "maxMs");
+        }
+
+        /**
+         * Start timing the section.
+         */
+        public void start() {
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Stop timing the section and record the sample.
+         *
+         * @return Time since {@link Entry#start()} in nanoseconds.
+         */
+        public long stop() {
+            long elapsed = System.nanoTime() - startNanos;
+            record(elapsed);
+            return elapsed;
+        }
+
+        /**
+         * Record a sample measured elsewhere.
+         *
+         * @param nanos Duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % kSampleCount;
+            if (count < kSampleCount) {
+                count++;
+            }
+        }
+
+        private void publish() {
+            if (count == 0) {
+                return;
+            }
+            System.arraycopy(samples, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            double p50 = sorted[(count - 1) / 2] / 1e6;
+            double p99 = sorted[(int) Math.ceil((count - 1) * 0.99)] / 1e6;
+            double max = sorted[count - 1] / 1e6;
+            p50Publisher.set(p50);
+            p99Publisher.set(p99);
+            maxPublisher.set(max);
+            p50Log.append(p50);
+            p99Log.append(p99);
+            maxLog.append(max);
+        }
+    }
+}
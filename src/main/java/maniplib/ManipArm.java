@@ -18,7 +18,6 @@ import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import maniplib.motors.ManipMotor;
@@ -28,7 +27,19 @@ import maniplib.utils.PIDFConfig;
 
 import static edu.wpi.first.units.Units.*;
 
-public class ManipArm extends SubsystemBase {
+public class ManipArm extends ProfiledSubsystem {
+    private final Telemetry.NumberField angleTelemetry =
+            Telemetry.number("Arm Angle", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.NumberField motorRotationsTelemetry =
+            Telemetry.number("Arm Motor Rotations", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.NumberField motorAngleTelemetry =
+            Telemetry.number("Arm Motor Angle", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.NumberField appliedOutputTelemetry =
+            Telemetry.number("Arm Applied Output", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.BooleanField topLimitTelemetry =
+            Telemetry.bool("Top Limit", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.BooleanField bottomLimitTelemetry =
+            Telemetry.bool("Bottom Limit", Telemetry.ManipTelemetry.HIGH);
     // Mutable holders for unit-safe values, persisted to avoid reallocation.
     private final MutVoltage appliedVoltage = Volts.mutable(0);
     private final MutAngle angle = Rotations.mutable(0);
@@ -68,7 +79,7 @@ public class ManipArm extends SubsystemBase {
      */
     public ManipArm(ManipMotor motor, ManipArmConstants armConstants) {
         if (!armConstants.kEnableAdvanced) {
-            new ManipArm(motor);
+            this.motor = motor;
         } else {
             this.motor = motor;
             this.armConstants = armConstants;
@@ -109,10 +120,10 @@ public class ManipArm extends SubsystemBase {
                             log -> {
                                 // Record a frame for the arm motor.
                                 log.motor("manipArm")
-                                        .voltage(appliedVoltage.mut_replace(motor.getAppliedOutput() *
+                                        .voltage(appliedVoltage.mut_replace(motor.getSensors().getAppliedOutput() *
                                                 RobotController.getBatteryVoltage(), Volts))
-                                        .angularPosition(angle.mut_replace(motor.getPosition(), Rotations))
-                                        .angularVelocity(velocity.mut_replace(motor.getVelocity(), RPM));
+                                        .angularPosition(angle.mut_replace(motor.getSensors().getPosition(), Rotations))
+                                        .angularVelocity(velocity.mut_replace(motor.getSensors().getVelocity(), RPM));
                             },
                             this));
 
@@ -152,6 +163,9 @@ public class ManipArm extends SubsystemBase {
                                     new Color8Bit(Color.kOrange)
                             ));
         }
+
+        // Position, velocity and applied output are read every loop.
+        this.motor.setStatusProfile(ManipMotor.StatusProfile.POSITION_CONTROL);
     }
 
     /**
@@ -167,25 +181,26 @@ public class ManipArm extends SubsystemBase {
      */
     public ManipArm(ManipMotor motor) {
         this.motor = motor;
+        motor.setStatusProfile(ManipMotor.StatusProfile.POSITION_CONTROL);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.LOW.ordinal()) {
             if (RobotBase.isSimulation()) {
                 SmartDashboard.putData("Arm Side View", arm2d);
             }
         }
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.HIGH.ordinal()) {
-            SmartDashboard.putNumber("Arm Angle", getAngle().in(Degrees));
-            SmartDashboard.putNumber("Arm Motor Rotations", motor.getPosition());
-            SmartDashboard.putNumber("Arm Motor Angle", ManipMath.Arm.convertSensorUnitsToAngle(
-                    armConstants.kArmReduction, Rotations.of(motor.getPosition())).in(Degrees));
+            angleTelemetry.set(getAngle().in(Degrees));
+            motorRotationsTelemetry.set(motor.getSensors().getPosition());
+            motorAngleTelemetry.set(ManipMath.Arm.convertSensorUnitsToAngle(
+                    armConstants.kArmReduction, Rotations.of(motor.getSensors().getPosition())).in(Degrees));
 
-            SmartDashboard.putNumber("Arm Applied Output", motor.getAppliedOutput());
+            appliedOutputTelemetry.set(motor.getSensors().getAppliedOutput());
 
-            SmartDashboard.putBoolean("Top Limit", topLimit.getAsBoolean());
-            SmartDashboard.putBoolean("Bottom Limit", topLimit.getAsBoolean());
+            topLimitTelemetry.set(topLimit.getAsBoolean());
+            bottomLimitTelemetry.set(topLimit.getAsBoolean());
         }
     }
 
@@ -194,7 +209,7 @@ public class ManipArm extends SubsystemBase {
      * Controls the arm simulation.
      */
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Set the armSim input, we use volts for this.
         armSim.setInput(motor.getAppliedOutput() * RoboRioSim.getVInVoltage());
 
@@ -242,8 +257,8 @@ public class ManipArm extends SubsystemBase {
 
         this.atMin = new Trigger(() -> getAngle().isNear(this.armConstants.kMinAngle, Degrees.of(3)));
         this.atMax = new Trigger(() -> getAngle().isNear(this.armConstants.kMaxAngle, Degrees.of(3)));
-        this.goingDown = new Trigger(() -> motor.getAppliedOutput() < 0);
-        this.goingUp = new Trigger(() -> motor.getAppliedOutput() > 0);
+        this.goingDown = new Trigger(() -> motor.getSensors().getAppliedOutput() < 0);
+        this.goingUp = new Trigger(() -> motor.getSensors().getAppliedOutput() > 0);
 
         this.atMin.and(goingDown).or(topLimit).onTrue(runOnce(this::stopArm));
         this.atMax.and(goingUp).or(topLimit).onTrue(runOnce(this::stopArm));
@@ -273,6 +288,7 @@ public class ManipArm extends SubsystemBase {
      */
     public void addFollower(ManipMotor followerMotor, boolean isInverted) {
         followerMotor.setAsFollower(motor, isInverted);
+        followerMotor.setStatusProfile(ManipMotor.StatusProfile.FOLLOWER_MINIMAL);
     }
 
     /**
@@ -356,7 +372,7 @@ public class ManipArm extends SubsystemBase {
     public void reachSetpoint(double setpoint) {
         if (isAdvancedEnabled) {
             double goalPosition = ManipMath.Arm.convertAngleToSensorUnits(armConstants.kArmReduction, Degrees.of(setpoint)).in(Rotations);
-            double pidOutput = motor.getRioController().calculate(motor.getPosition(), goalPosition);
+            double pidOutput = motor.getRioController().calculate(motor.getSensors().getPosition(), goalPosition);
             TrapezoidProfile.State setpointState = motor.getRioController().getSetpoint();
 
             motor.setVoltage(pidOutput +
@@ -407,7 +423,7 @@ public class ManipArm extends SubsystemBase {
      */
     public Angle getAngle() {
         if (isAdvancedEnabled) {
-            angle.mut_replace(ManipMath.Arm.convertSensorUnitsToAngle(armConstants.kArmReduction, angle.mut_replace(motor.getPosition(), Rotations)));
+            angle.mut_replace(ManipMath.Arm.convertSensorUnitsToAngle(armConstants.kArmReduction, angle.mut_replace(motor.getSensors().getPosition(), Rotations)));
         } else {
             DriverStation.reportWarning("Advanced ManipArm is required for getAngle()", true);
         }
@@ -423,7 +439,7 @@ public class ManipArm extends SubsystemBase {
         if (!isAdvancedEnabled) {
             DriverStation.reportWarning("Advanced ManipArm is required for getVelocity(), returning 0", true);
         }
-        return velocity.mut_replace(ManipMath.Arm.convertSensorUnitsToAngle(armConstants.kArmReduction, Rotations.of(motor.getVelocity())).per(Minute));
+        return velocity.mut_replace(ManipMath.Arm.convertSensorUnitsToAngle(armConstants.kArmReduction, Rotations.of(motor.getSensors().getVelocity())).per(Minute));
     }
 
     /**
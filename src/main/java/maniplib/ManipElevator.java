@@ -16,7 +16,6 @@ import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import maniplib.motors.ManipMotor;
@@ -26,7 +25,11 @@ import maniplib.utils.PIDFConfig;
 
 import static edu.wpi.first.units.Units.*;
 
-public class ManipElevator extends SubsystemBase {
+public class ManipElevator extends ProfiledSubsystem {
+    private final Telemetry.NumberField heightTelemetry =
+            Telemetry.number("Elevator Height", Telemetry.ManipTelemetry.HIGH);
+    private final Telemetry.NumberField appliedOutputTelemetry =
+            Telemetry.number("Elevator Applied Output", Telemetry.ManipTelemetry.HIGH);
     // Mutable holders for unit-safe values, persisted to avoid reallocation.
     private final MutVoltage appliedVoltage = Volts.mutable(0);
     private final MutLinearVelocity velocity = MetersPerSecond.mutable(0);
@@ -102,7 +105,7 @@ public class ManipElevator extends SubsystemBase {
                             log -> {
                                 // Record a frame for the elevator motor.
                                 log.motor("manipElevator")
-                                        .voltage(appliedVoltage.mut_replace(motor.getAppliedOutput() *
+                                        .voltage(appliedVoltage.mut_replace(motor.getSensors().getAppliedOutput() *
                                                 RobotController.getBatteryVoltage(), Volts))
                                         .linearPosition(distance.mut_replace(getHeightMeters(),
                                                 Meters)) // Records Height in Meters via SysIdRoutineLog.linearPosition
@@ -146,6 +149,8 @@ public class ManipElevator extends SubsystemBase {
                             ));
         }
 
+        // Position, velocity and applied output are read every loop.
+        this.motor.setStatusProfile(ManipMotor.StatusProfile.POSITION_CONTROL);
     }
 
     /**
@@ -161,16 +166,17 @@ public class ManipElevator extends SubsystemBase {
      */
     public ManipElevator(ManipMotor motor) {
         this.motor = motor;
+        motor.setStatusProfile(ManipMotor.StatusProfile.POSITION_CONTROL);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.LOW.ordinal()) {
             SmartDashboard.putData("Elevator Side", elevator2d);
         }
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.HIGH.ordinal()) {
-            SmartDashboard.putNumber("Elevator Height", Meters.of(getHeightMeters()).in(Inches));
-            SmartDashboard.putNumber("Elevator Applied Output", motor.getAppliedOutput());
+            heightTelemetry.set(Inches.convertFrom(getHeightMeters(), Meters));
+            appliedOutputTelemetry.set(motor.getSensors().getAppliedOutput());
         }
     }
 
@@ -179,7 +185,7 @@ public class ManipElevator extends SubsystemBase {
      * Controls the elevator simulation.
      */
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Set the elevatorSim input, we use volts for this.
         elevatorSim.setInput(motor.getAppliedOutput() * RoboRioSim.getVInVoltage());
 
@@ -226,8 +232,8 @@ public class ManipElevator extends SubsystemBase {
 
         this.atMin = new Trigger(() -> getLinearPosition().isNear(elevatorConstants.kMinHeight, Inches.of(1)));
         this.atMax = new Trigger(() -> getLinearPosition().isNear(elevatorConstants.kMaxHeight, Inches.of(1)));
-        this.goingDown = new Trigger(() -> motor.getAppliedOutput() < 0);
-        this.goingUp = new Trigger(() -> motor.getAppliedOutput() > 0);
+        this.goingDown = new Trigger(() -> motor.getSensors().getAppliedOutput() < 0);
+        this.goingUp = new Trigger(() -> motor.getSensors().getAppliedOutput() > 0);
 
         this.atMin.and(goingDown).or(bottomLimit).onTrue(run(this::stopElevator));
         this.atMax.and(goingUp).or(topLimit).onTrue(run(this::stopElevator));
@@ -261,6 +267,7 @@ public class ManipElevator extends SubsystemBase {
      */
     public void addFollower(ManipMotor followerMotor, boolean isInverted) {
         followerMotor.setAsFollower(motor, isInverted);
+        followerMotor.setStatusProfile(ManipMotor.StatusProfile.FOLLOWER_MINIMAL);
     }
 
     public void setHeight(Distance height) {
@@ -298,7 +305,7 @@ public class ManipElevator extends SubsystemBase {
         return ManipMath.Elevator.convertRotationsToDistance(
                 elevatorConstants.kElevatorDrumRadius,
                 elevatorConstants.kElevatorGearing,
-                Rotations.of(motor.getVelocity())).per(Minute);
+                Rotations.of(motor.getSensors().getVelocity())).per(Minute);
     }
 
     /**
@@ -310,7 +317,7 @@ public class ManipElevator extends SubsystemBase {
         return ManipMath.Elevator.convertRotationsToDistance(
                 elevatorConstants.kElevatorDrumRadius,
                 elevatorConstants.kElevatorGearing,
-                Rotations.of(motor.getPosition()));
+                Rotations.of(motor.getSensors().getPosition()));
     }
 
     /**
@@ -322,7 +329,7 @@ public class ManipElevator extends SubsystemBase {
         return ManipMath.Elevator.convertRotationsToDistance(
                 elevatorConstants.kElevatorDrumRadius,
                 elevatorConstants.kElevatorGearing,
-                Rotations.of(motor.getPosition())
+                Rotations.of(motor.getSensors().getPosition())
         ).in(Meters);
     }
 
@@ -332,7 +339,7 @@ public class ManipElevator extends SubsystemBase {
      * @return velocity in meters per second
      */
     public double getVelocityMetersPerSecond() {
-        return ((motor.getVelocity() / 60) / elevatorConstants.kElevatorGearing) *
+        return ((motor.getSensors().getVelocity() / 60) / elevatorConstants.kElevatorGearing) *
                 (2 * Math.PI * elevatorConstants.kElevatorDrumRadius);
     }
 
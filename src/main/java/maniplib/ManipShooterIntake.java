@@ -4,14 +4,14 @@ import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.FlywheelSim;
 import edu.wpi.first.wpilibj.simulation.RoboRioSim;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import maniplib.motors.ManipMotor;
 import maniplib.utils.ManipIntakeShooterConstants;
 import maniplib.utils.PIDControlType;
 
-public class ManipShooterIntake extends SubsystemBase {
+public class ManipShooterIntake extends ProfiledSubsystem {
+    private final Telemetry.NumberField appliedOutputTelemetry =
+            Telemetry.number("Intake Shooter Applied Output", Telemetry.ManipTelemetry.HIGH);
 
     private final ManipMotor motor;
     private final ManipIntakeShooterConstants constants;
@@ -31,6 +31,8 @@ public class ManipShooterIntake extends SubsystemBase {
                 constants.gearbox);
 
         motor.setPIDControlType(PIDControlType.ControlType.VELOCITY);
+        // Only velocity and applied output are read, position is unused.
+        motor.setStatusProfile(ManipMotor.StatusProfile.VELOCITY_CONTROL);
 
         flywheelSim = new FlywheelSim(
                 LinearSystemId.createFlywheelSystem(
@@ -42,16 +44,16 @@ public class ManipShooterIntake extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.LOW.ordinal()) {
         }
         if (Telemetry.manipVerbosity.ordinal() <= Telemetry.ManipTelemetry.HIGH.ordinal()) {
-            SmartDashboard.putNumber("Intake Shooter Applied Output", motor.getAppliedOutput());
+            appliedOutputTelemetry.set(motor.getSensors().getAppliedOutput());
         }
     }
 
     @Override
-    public void simulationPeriodic() {
+    protected void profiledSimulationPeriodic() {
         // Set simulated input
         flywheelSim.setInput(motor.getAppliedOutput() * RoboRioSim.getVInVoltage());
         // Then update it
@@ -77,6 +79,7 @@ public class ManipShooterIntake extends SubsystemBase {
      */
     public void addFollower(ManipMotor followerMotor, boolean isInverted) {
         followerMotor.setAsFollower(motor, isInverted);
+        followerMotor.setStatusProfile(ManipMotor.StatusProfile.FOLLOWER_MINIMAL);
     }
 
     /**
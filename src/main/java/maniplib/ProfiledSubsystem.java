@@ -0,0 +1,43 @@
+package maniplib;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * A {@link SubsystemBase} whose periodic methods are timed by the {@link LoopProfiler} as
+ * {@code <class>.periodic()} and {@code <class>.simulationPeriodic()}. Subclasses override
+ * {@link ProfiledSubsystem#profiledPeriodic()} and {@link ProfiledSubsystem#profiledSimulationPeriodic()} instead of
+ * the {@link SubsystemBase} methods.
+ */
+public abstract class ProfiledSubsystem extends SubsystemBase {
+
+    private final LoopProfiler.Entry periodicProfile =
+            LoopProfiler.getEntry(getClass().getSimpleName() + ".periodic()");
+    private final LoopProfiler.Entry simulationProfile =
+            LoopProfiler.getEntry(getClass().getSimpleName() + ".simulationPeriodic()");
+
+    @Override
+    public final void periodic() {
+        periodicProfile.start();
+        profiledPeriodic();
+        periodicProfile.stop();
+    }
+
+    @Override
+    public final void simulationPeriodic() {
+        simulationProfile.start();
+        profiledSimulationPeriodic();
+        simulationProfile.stop();
+    }
+
+    /**
+     * Called once per scheduler run, timed as {@code <class>.periodic()}.
+     */
+    protected void profiledPeriodic() {
+    }
+
+    /**
+     * Called once per scheduler run in simulation, timed as {@code <class>.simulationPeriodic()}.
+     */
+    protected void profiledSimulationPeriodic() {
+    }
+}
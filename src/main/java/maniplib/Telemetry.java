@@ -1,11 +1,42 @@
 package maniplib;
 
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class Telemetry extends SubsystemBase {
 
     public static ManipTelemetry manipVerbosity = ManipTelemetry.HIGH;
 
+    /**
+     * Minimum time between writes of a {@link ManipTelemetry#LOW} field.
+     */
+    private static final double kLowPeriodSeconds = 0.02;
+    /**
+     * Minimum time between writes of a {@link ManipTelemetry#HIGH} field.
+     */
+    private static final double kHighPeriodSeconds = 0.1;
+
+    /**
+     * Values are published under the SmartDashboard table so existing dashboard layouts keep working.
+     */
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private static final Map<String, Field> fieldsByKey = new HashMap<>();
+    private static final List<Field> fields = new ArrayList<>();
+
     public enum ManipTelemetry {
         /*
          * No telemetry data is sent to dashboard. Including sim.
@@ -23,4 +54,262 @@ public class Telemetry extends SubsystemBase {
         HIGH
     }
 
+    /**
+     * Get a number field, creating its publisher the first time the key is used.
+     *
+     * @param key   SmartDashboard key.
+     * @param level Lowest verbosity the field is published at.
+     * @return The field.
+     */
+    public static NumberField number(String key, ManipTelemetry level) {
+        Field field = fieldsByKey.get(key);
+        return field != null ? (NumberField) field : register(new NumberField(key, level));
+    }
+
+    /**
+     * Get a boolean field, creating its publisher the first time the key is used.
+     *
+     * @param key   SmartDashboard key.
+     * @param level Lowest verbosity the field is published at.
+     * @return The field.
+     */
+    public static BooleanField bool(String key, ManipTelemetry level) {
+        Field field = fieldsByKey.get(key);
+        return field != null ? (BooleanField) field : register(new BooleanField(key, level));
+    }
+
+    /**
+     * Get a string field, creating its publisher the first time the key is used.
+     *
+     * @param key   SmartDashboard key.
+     * @param level Lowest verbosity the field is published at.
+     * @return The field.
+     */
+    public static StringField string(String key, ManipTelemetry level) {
+        Field field = fieldsByKey.get(key);
+        return field != null ? (StringField) field : register(new StringField(key, level));
+    }
+
+    /**
+     * Get a struct field, creating its publisher the first time the key is used.
+     *
+     * @param key    SmartDashboard key.
+     * @param struct Struct used to serialize the value, e.g. {@code Pose2d.struct}.
+     * @param level  Lowest verbosity the field is published at.
+     * @param <T>    Type of the value.
+     * @return The field.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> StructField<T> struct(String key, Struct<T> struct, ManipTelemetry level) {
+        Field field = fieldsByKey.get(key);
+        return field != null ? (StructField<T>) field : register(new StructField<>(key, struct, level));
+    }
+
+    /**
+     * Get a struct array field, creating its publisher the first time the key is used.
+     *
+     * @param key    SmartDashboard key.
+     * @param struct Struct used to serialize the elements, e.g. {@code Pose2d.struct}.
+     * @param level  Lowest verbosity the field is published at.
+     * @param <T>    Type of the elements.
+     * @return The field.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> StructArrayField<T> structArray(String key, Struct<T> struct, ManipTelemetry level) {
+        Field field = fieldsByKey.get(key);
+        return field != null ? (StructArrayField<T>) field : register(new StructArrayField<>(key, struct, level));
+    }
+
+    private static <F extends Field> F register(F field) {
+        fieldsByKey.put(field.key, field);
+        fields.add(field);
+        return field;
+    }
+
+    /**
+     * Write every field that changed since it was last published, is allowed by {@link Telemetry#manipVerbosity} and
+     * is past its rate limit. Call once per loop after the scheduler has run.
+     */
+    public static void flush() {
+        double now = Timer.getFPGATimestamp();
+        int verbosity = manipVerbosity.ordinal();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (verbosity >= field.level.ordinal()
+                    && now - field.lastPublishSeconds >= field.periodSeconds
+                    && field.changed()) {
+                field.publish();
+                field.lastPublishSeconds = now;
+            }
+        }
+    }
+
+    /**
+     * A single telemetry value. Setting it only stores the value, {@link Telemetry#flush()} does the write.
+     */
+    public abstract static class Field {
+        private final String key;
+        private final ManipTelemetry level;
+        private double periodSeconds;
+        private double lastPublishSeconds = Double.NEGATIVE_INFINITY;
+
+        private Field(String key, ManipTelemetry level) {
+            this.key = key;
+            this.level = level;
+            this.periodSeconds = level == ManipTelemetry.HIGH ? kHighPeriodSeconds : kLowPeriodSeconds;
+        }
+
+        /**
+         * Override the minimum time between writes of this field.
+         *
+         * @param periodSeconds Minimum time between writes in seconds.
+         */
+        public void setPeriod(double periodSeconds) {
+            this.periodSeconds = periodSeconds;
+        }
+
+        abstract boolean changed();
+
+        abstract void publish();
+    }
+
+    public static final class NumberField extends Field {
+        private final DoublePublisher publisher;
+        private double value;
+        private double published = Double.NaN;
+
+        private NumberField(String key, ManipTelemetry level) {
+            super(key, level);
+            publisher = table.getDoubleTopic(key).publish();
+        }
+
+        public void set(double value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean changed() {
+            return Double.doubleToLongBits(value) != Double.doubleToLongBits(published);
+        }
+
+        @Override
+        void publish() {
+            publisher.set(value);
+            published = value;
+        }
+    }
+
+    public static final class BooleanField extends Field {
+        private final BooleanPublisher publisher;
+        private boolean value;
+        private boolean published;
+        private boolean hasPublished = false;
+
+        private BooleanField(String key, ManipTelemetry level) {
+            super(key, level);
+            publisher = table.getBooleanTopic(key).publish();
+        }
+
+        public void set(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean changed() {
+            return !hasPublished || value != published;
+        }
+
+        @Override
+        void publish() {
+            publisher.set(value);
+            published = value;
+            hasPublished = true;
+        }
+    }
+
+    public static final class StringField extends Field {
+        private final StringPublisher publisher;
+        private String value = "";
+        private String published = null;
+
+        private StringField(String key, ManipTelemetry level) {
+            super(key, level);
+            publisher = table.getStringTopic(key).publish();
+        }
+
+        /**
+         * @param value Value to publish, pass constants such as enum names so no string is built every loop.
+         */
+        public void set(String value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean changed() {
+            return value != published && !value.equals(published);
+        }
+
+        @Override
+        void publish() {
+            publisher.set(value);
+            published = value;
+        }
+    }
+
+    public static final class StructField<T> extends Field {
+        private final StructPublisher<T> publisher;
+        private T value = null;
+        private T published = null;
+
+        private StructField(String key, Struct<T> struct, ManipTelemetry level) {
+            super(key, level);
+            publisher = table.getStructTopic(key, struct).publish();
+        }
+
+        public void set(T value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean changed() {
+            return value != null && !value.equals(published);
+        }
+
+        @Override
+        void publish() {
+            publisher.set(value);
+            published = value;
+        }
+    }
+
+    public static final class StructArrayField<T> extends Field {
+        private final StructArrayPublisher<T> publisher;
+        private T[] value = null;
+        private T[] published = null;
+
+        private StructArrayField(String key, Struct<T> struct, ManipTelemetry level) {
+            super(key, level);
+            publisher = table.getStructArrayTopic(key, struct).publish();
+        }
+
+        /**
+         * @param value Values to publish. The array may be reused and changed in place, a copy is kept to detect
+         *              changes.
+         */
+        public void set(T[] value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean changed() {
+            return value != null && !Arrays.equals(value, published);
+        }
+
+        @Override
+        void publish() {
+            publisher.set(value);
+            published = value.clone();
+        }
+    }
+
 }
@@ -3,10 +3,17 @@ package maniplib.motors;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.measure.Voltage;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.utils.PIDControlType;
 import maniplib.utils.PIDFConfig;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Swerve motor abstraction which defines a standard interface for motors within a swerve module.
  */
@@ -22,6 +29,254 @@ public abstract class ManipMotor {
      */
     public final int maximumRetries = 5;
 
+    /**
+     * Every motor created, updated together by {@link ManipMotor#updateAll()}.
+     */
+    private static final List<ManipMotor> motors = new ArrayList<>();
+    /**
+     * True while a config transaction is open, see {@link ManipMotor#beginConfig()}.
+     */
+    private static boolean configDeferred = false;
+    private static final Telemetry.NumberField busUtilizationTelemetry =
+            Telemetry.number("Manip CAN Utilization", ManipTelemetry.LOW);
+
+    /**
+     * CAN bus bit rate used by the FRC control system.
+     */
+    public static final double kCanBitsPerSecond = 1_000_000;
+    /**
+     * Bits on the wire for one extended CAN frame with an 8 byte payload, including typical bit stuffing.
+     */
+    public static final double kCanBitsPerFrame = 135;
+
+    /**
+     * Bus voltage, current and temperature, and every sensor of a follower, are read once every this many loops.
+     */
+    public static final int kSlowSensorLoops = 10;
+    private static int sensorLoop = 0;
+
+    /**
+     * Outputs closer than this to the last sent output of the same mode are not sent again.
+     */
+    public static final double kOutputEpsilon = 1e-4;
+    /**
+     * An unchanged output is still sent this often, so the controller never goes long without a command.
+     */
+    public static final double kOutputKeepAliveSeconds = 0.1;
+
+    /**
+     * Last output sent to the controller, null when it is unknown.
+     */
+    private Enum<?> lastOutputMode = null;
+    private double lastOutputValue = 0;
+    private double lastOutputFeedforward = 0;
+    private double lastOutputTime = 0;
+    private int framesSaved = 0;
+    /**
+     * Sensor values read at the start of the loop by {@link ManipMotor#updateAll()}.
+     */
+    protected final SensorSnapshot sensors = new SensorSnapshot();
+    /**
+     * Status frame periods the controller was configured with, see {@link ManipMotor#setStatusProfile(StatusProfile)}.
+     */
+    protected StatusProfile statusProfile = StatusProfile.DEFAULT;
+
+    /**
+     * Register the motor so it is updated by {@link ManipMotor#updateAll()}.
+     */
+    protected ManipMotor() {
+        motors.add(this);
+    }
+
+    /**
+     * Update every motor. Call once per loop from the main thread, before the scheduler runs.
+     */
+    public static void updateAll() {
+        boolean slowLoop = sensorLoop == 0;
+        sensorLoop = (sensorLoop + 1) % kSlowSensorLoops;
+        double now = Timer.getFPGATimestamp();
+        for (int i = 0; i < motors.size(); i++) {
+            ManipMotor motor = motors.get(i);
+            // Mechanisms only read their lead motor every loop, followers are read at the slow rate.
+            if (slowLoop || motor.statusProfile != StatusProfile.FOLLOWER_MINIMAL) {
+                motor.readSensors(motor.sensors, slowLoop);
+                motor.sensors.timestampSeconds = now;
+            }
+            motor.update();
+        }
+        busUtilizationTelemetry.set(estimateBusUtilization());
+    }
+
+    /**
+     * Open a config transaction. Until {@link ManipMotor#commitConfig()} is called, config changes are only collected
+     * and each motor is configured once at the end instead of once per change.
+     */
+    public static void beginConfig() {
+        configDeferred = true;
+    }
+
+    /**
+     * Close the config transaction and apply the collected config of every motor with one configure call per device.
+     * Devices are independent on the bus, so they are configured in parallel and this returns once all are done.
+     */
+    public static void commitConfig() {
+        configDeferred = false;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < motors.size(); i++) {
+            ManipMotor motor = motors.get(i);
+            if (motor.hasPendingConfig()) {
+                Thread thread = new Thread(motor::flushConfig, "ManipMotor " + motor.getMotorID() + " Config");
+                thread.start();
+                threads.add(thread);
+            }
+        }
+        for (int i = 0; i < threads.size(); i++) {
+            try {
+                threads.get(i).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return True while a config transaction is open and config changes should only be collected.
+     */
+    protected static boolean isConfigDeferred() {
+        return configDeferred;
+    }
+
+    /**
+     * @return True if config changes were collected during a transaction and have not been applied yet.
+     */
+    protected abstract boolean hasPendingConfig();
+
+    /**
+     * Apply the collected config to the motor controller now. Called from a worker thread by
+     * {@link ManipMotor#commitConfig()}.
+     */
+    protected abstract void flushConfig();
+
+    /**
+     * Estimate the share of the CAN bus used by every motor, from the status frame periods each one was configured
+     * with and one setpoint frame per loop for every motor that is not following another. Output frames skipped by
+     * the output cache are not subtracted, so this is an upper bound for the motors.
+     *
+     * @return Expected bus utilization from 0 to 1.
+     */
+    public static double estimateBusUtilization() {
+        double framesPerSecond = 0;
+        for (int i = 0; i < motors.size(); i++) {
+            StatusProfile profile = motors.get(i).statusProfile;
+            framesPerSecond += profile.getStatusFramesPerSecond();
+            if (profile != StatusProfile.FOLLOWER_MINIMAL) {
+                framesPerSecond += 1 / TimedRobot.kDefaultPeriod;
+            }
+        }
+        return framesPerSecond * kCanBitsPerFrame / kCanBitsPerSecond;
+    }
+
+    /**
+     * Get the sensor values read at the start of the loop. Prefer these over the direct getters when reading a sensor
+     * more than once per loop, each direct read goes through the vendor library.
+     *
+     * @return The {@link SensorSnapshot} of this motor, updated in place. Followers are only updated every
+     * {@link ManipMotor#kSlowSensorLoops} loops, see {@link SensorSnapshot#getTimestamp()}.
+     */
+    public SensorSnapshot getSensors() {
+        return sensors;
+    }
+
+    /**
+     * Read the sensors of the motor controller into the snapshot, called by {@link ManipMotor#updateAll()}.
+     *
+     * @param sensors  Snapshot to write to.
+     * @param readSlow Whether to also read bus voltage, current and temperature.
+     */
+    protected abstract void readSensors(SensorSnapshot sensors, boolean readSlow);
+
+    /**
+     * Called once per loop by {@link ManipMotor#updateAll()}, retries commands that failed to send last loop.
+     */
+    protected void update() {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Check an output against the last one sent. Outputs that match it within {@link ManipMotor#kOutputEpsilon} are
+     * counted as saved frames and skipped, unless {@link ManipMotor#kOutputKeepAliveSeconds} has passed.
+     *
+     * @param mode        Control mode of the output.
+     * @param value       Output value.
+     * @param feedforward Feedforward sent with the output.
+     * @return True if the output should be sent.
+     */
+    protected final boolean outputChanged(Enum<?> mode, double value, double feedforward) {
+        if (mode == lastOutputMode
+                && Math.abs(value - lastOutputValue) <= kOutputEpsilon
+                && Math.abs(feedforward - lastOutputFeedforward) <= kOutputEpsilon
+                && Timer.getFPGATimestamp() - lastOutputTime < kOutputKeepAliveSeconds) {
+            framesSaved++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record an output the controller accepted, see {@link ManipMotor#outputChanged(Enum, double, double)}.
+     *
+     * @param mode        Control mode of the output.
+     * @param value       Output value.
+     * @param feedforward Feedforward sent with the output.
+     */
+    protected final void outputSent(Enum<?> mode, double value, double feedforward) {
+        lastOutputMode = mode;
+        lastOutputValue = value;
+        lastOutputFeedforward = feedforward;
+        lastOutputTime = Timer.getFPGATimestamp();
+    }
+
+    /**
+     * Forget the last sent output so the next one is always sent, call when the controller may have dropped it.
+     */
+    protected final void invalidateOutput() {
+        lastOutputMode = null;
+    }
+
+    /**
+     * Get the number of outputs that were not sent because they matched the last one.
+     *
+     * @return Frames saved since the motor was created.
+     */
+    public int getFramesSaved() {
+        return framesSaved;
+    }
+
+    /**
+     * Set how often the motor controller sends each status frame. Only the signals the mechanism reads need to be
+     * fast, every other frame can be slowed down to free up the CAN bus.
+     *
+     * @param profile {@link StatusProfile} matching what the mechanism reads from this motor.
+     */
+    public abstract void setStatusProfile(StatusProfile profile);
+
+    /**
+     * Get the status frame profile the motor controller was configured with.
+     *
+     * @return {@link StatusProfile} of the motor.
+     */
+    public StatusProfile getStatusProfile() {
+        return statusProfile;
+    }
+
+    /**
+     * Get the number of commands that failed to send to the motor controller.
+     *
+     * @return Errors since the motor was created.
+     */
+    public abstract int getErrorCount();
+
     /**
      * Configure the factory defaults.
      */
@@ -248,4 +503,107 @@ public abstract class ManipMotor {
      * @return Motor object.
      */
     public abstract Object getMotor();
+
+    /**
+     * Status frame periods for the signals a mechanism reads. Applied output and faults share a frame, as do velocity,
+     * bus voltage, current and temperature. Position has a frame of its own.
+     */
+    public enum StatusProfile {
+        /**
+         * Vendor defaults, what a motor sends before a profile is set.
+         */
+        DEFAULT(10, 20, 20),
+        /**
+         * A follower, nothing is read from it apart from faults.
+         */
+        FOLLOWER_MINIMAL(100, 250, 500),
+        /**
+         * Position control, reads position and velocity every loop. Applied output stays fast since followers use
+         * it as their setpoint.
+         */
+        POSITION_CONTROL(10, 20, 20),
+        /**
+         * Velocity control, reads velocity and applied output every loop, position is unused.
+         */
+        VELOCITY_CONTROL(10, 20, 500);
+
+        public final int appliedOutputPeriodMs;
+        public final int velocityPeriodMs;
+        public final int positionPeriodMs;
+
+        StatusProfile(int appliedOutputPeriodMs, int velocityPeriodMs, int positionPeriodMs) {
+            this.appliedOutputPeriodMs = appliedOutputPeriodMs;
+            this.velocityPeriodMs = velocityPeriodMs;
+            this.positionPeriodMs = positionPeriodMs;
+        }
+
+        /**
+         * @return Status frames sent per second with this profile.
+         */
+        public double getStatusFramesPerSecond() {
+            return 1000.0 / appliedOutputPeriodMs + 1000.0 / velocityPeriodMs + 1000.0 / positionPeriodMs;
+        }
+    }
+
+    /**
+     * Sensor values of a motor controller, read once per loop.
+     */
+    public static final class SensorSnapshot {
+        double position = 0;
+        double velocity = 0;
+        double appliedOutput = 0;
+        double busVoltage = 0;
+        double current = 0;
+        double temperature = 0;
+        double timestampSeconds = Double.NaN;
+
+        /**
+         * @return FPGA time the snapshot was last read at, NaN before the first read.
+         */
+        public double getTimestamp() {
+            return timestampSeconds;
+        }
+
+        /**
+         * @return Position of the integrated encoder in meters or degrees.
+         */
+        public double getPosition() {
+            return position;
+        }
+
+        /**
+         * @return Velocity of the integrated encoder in meters per second or degrees per second.
+         */
+        public double getVelocity() {
+            return velocity;
+        }
+
+        /**
+         * @return Applied dutycycle output.
+         */
+        public double getAppliedOutput() {
+            return appliedOutput;
+        }
+
+        /**
+         * @return Input voltage of the motor controller, read every {@link ManipMotor#kSlowSensorLoops} loops.
+         */
+        public double getBusVoltage() {
+            return busVoltage;
+        }
+
+        /**
+         * @return Output current in amps, read every {@link ManipMotor#kSlowSensorLoops} loops.
+         */
+        public double getCurrent() {
+            return current;
+        }
+
+        /**
+         * @return Motor temperature in celsius, read every {@link ManipMotor#kSlowSensorLoops} loops.
+         */
+        public double getTemperature() {
+            return temperature;
+        }
+    }
 }
@@ -13,21 +13,29 @@ import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 import com.revrobotics.spark.config.SparkMaxConfig;
+import com.revrobotics.spark.config.SparkMaxConfigAccessor;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import maniplib.Telemetry;
+import maniplib.Telemetry.ManipTelemetry;
 import maniplib.utils.PIDControlType;
 import maniplib.utils.PIDFConfig;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static edu.wpi.first.units.Units.Milliseconds;
 import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
 import static edu.wpi.first.wpilibj2.command.Commands.run;
 
 /**
@@ -51,6 +59,15 @@ public class ManipSparkMax extends ManipMotor {
      * Configuration object for {@link SparkMax} motor.
      */
     private final SparkMaxConfig cfg = new SparkMaxConfig();
+    /**
+     * Value of every parameter {@link ManipSparkMax#cfg} sets, to check the device against.
+     */
+    private final Map<StoredParameter, Object> expectedParameters = new EnumMap<>(StoredParameter.class);
+    /**
+     * Whether {@link ManipSparkMax#cfg} was given fields by {@link ManipSparkMax#updateConfig(SparkMaxConfig)} that
+     * are not in {@link ManipSparkMax#expectedParameters} and cannot be checked on the device.
+     */
+    private boolean unverifiableConfig = false;
     /**
      * Integrated encoder.
      */
@@ -79,6 +96,27 @@ public class ManipSparkMax extends ManipMotor {
      * {@link SparkMaxSim} for the mechanism.
      */
     private SparkMaxSim sparkMaxSim = null;
+    /**
+     * Output that failed to send, retried on the next loop by {@link ManipSparkMax#update()}.
+     */
+    private boolean outputPending = false;
+    private double pendingValue = 0;
+    private double pendingFeedforward = 0;
+    private ControlType pendingControlType = ControlType.kPosition;
+    /**
+     * Number of {@link REVLibError}s returned while sending outputs.
+     */
+    private int errorCount = 0;
+    private final Telemetry.NumberField errorTelemetry;
+    private final Telemetry.NumberField framesSavedTelemetry;
+    /**
+     * Whether {@link ManipSparkMax#cfg} changed during a config transaction and still needs to be applied.
+     */
+    private boolean configPending = false;
+    /**
+     * Whether {@link ManipSparkMax#burnFlash()} asked for the next config flush to persist regardless of the hash.
+     */
+    private boolean persistRequested = false;
 
     /**
      * Initialize the manip motor.
@@ -94,8 +132,13 @@ public class ManipSparkMax extends ManipMotor {
         pid = motor.getClosedLoopController();
 
         cfg.closedLoop.feedbackSensor(FeedbackSensor.kPrimaryEncoder); // Configure feedback of the PID controller as the integrated encoder.
+        expect(StoredParameter.FEEDBACK_SENSOR, FeedbackSensor.kPrimaryEncoder);
         velocity = encoder::getVelocity;
         position = encoder::getPosition;
+        errorTelemetry = Telemetry.number("Motor " + motor.getDeviceId() + " Errors", ManipTelemetry.LOW);
+        framesSavedTelemetry = Telemetry.number("Motor " + motor.getDeviceId() + " Frames Saved", ManipTelemetry.HIGH);
+        readSensors(sensors, true);
+        sensors.timestampSeconds = Timer.getFPGATimestamp();
     }
 
     /**
@@ -157,15 +200,92 @@ public class ManipSparkMax extends ManipMotor {
      * Run the configuration until it succeeds or times out.
      *
      * @param config Lambda supplier returning the error state.
+     * @return True if the configuration succeeded.
      */
-    private void configureSparkMax(Supplier<REVLibError> config) {
+    private boolean configureSparkMax(Supplier<REVLibError> config) {
         for (int i = 0; i < maximumRetries; i++) {
             if (config.get() == REVLibError.kOk) {
-                return;
+                return true;
             }
             Timer.delay(configDelay);
         }
         DriverStation.reportWarning("Failure configuring motor " + motor.getDeviceId(), true);
+        return false;
+    }
+
+    /**
+     * Apply {@link ManipSparkMax#cfg} now, or when the open config transaction is committed.
+     */
+    private void applyConfig() {
+        configPending = true;
+        if (!isConfigDeferred()) {
+            flushConfig();
+        }
+        invalidateOutput();
+    }
+
+    @Override
+    protected boolean hasPendingConfig() {
+        return configPending;
+    }
+
+    /**
+     * Make sure the device holds {@link ManipSparkMax#cfg}, in flash as well as in its working parameters.
+     * <p>
+     * The config is never applied without persisting it, so the working parameters the config sets match the flash
+     * and reading them back shows what the device comes back with after a brownout. Nothing is sent when the hash
+     * stored in {@link Preferences} the last time the config was burned still matches and every parameter reads back
+     * as expected. Otherwise, or when {@link ManipSparkMax#burnFlash()} asked for it or part of the config cannot be
+     * checked, the whole config is applied in one configure call and burned to flash.
+     */
+    @Override
+    protected void flushConfig() {
+        configPending = false;
+        String hashKey = "Motor " + motor.getDeviceId() + " Config Hash";
+        int hash = cfg.flatten().hashCode();
+        boolean persist = persistRequested
+                || unverifiableConfig
+                || !Preferences.containsKey(hashKey)
+                || Preferences.getInt(hashKey, 0) != hash
+                || !deviceHoldsConfig();
+        if (persist && configureSparkMax(() ->
+                motor.configure(cfg, ResetMode.kNoResetSafeParameters, PersistMode.kPersistParameters))) {
+            Preferences.setInt(hashKey, hash);
+            persistRequested = false;
+        }
+    }
+
+    /**
+     * Record the value a parameter of {@link ManipSparkMax#cfg} was set to.
+     *
+     * @param parameter {@link StoredParameter} set.
+     * @param value     Value it was set to.
+     */
+    private void expect(StoredParameter parameter, Object value) {
+        expectedParameters.put(parameter, value);
+    }
+
+    /**
+     * Read every parameter {@link ManipSparkMax#cfg} sets back from the device.
+     *
+     * @return True if all of them were read and match the config.
+     */
+    private boolean deviceHoldsConfig() {
+        for (Map.Entry<StoredParameter, Object> expected : expectedParameters.entrySet()) {
+            Object stored = expected.getKey().reader.apply(motor.configAccessor);
+            if (motor.getLastError() != REVLibError.kOk) {
+                return false;
+            }
+            if (expected.getValue() instanceof Number expectedNumber && stored instanceof Number storedNumber) {
+                // The device stores floats, compare at that precision.
+                if (Float.compare(expectedNumber.floatValue(), storedNumber.floatValue()) != 0) {
+                    return false;
+                }
+            } else if (!expected.getValue().equals(stored)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -178,7 +298,8 @@ public class ManipSparkMax extends ManipMotor {
     }
 
     /**
-     * Update the config for the {@link SparkMax}
+     * Update the config for the {@link SparkMax}. Fields set by another config cannot be checked on the device, so the
+     * config is burned to flash on every flush from then on.
      *
      * @param cfgGiven Given {@link SparkMaxConfig} which should have minimal modifications.
      */
@@ -186,8 +307,11 @@ public class ManipSparkMax extends ManipMotor {
         if (!DriverStation.isDisabled()) {
             throw new RuntimeException("Configuration changes cannot be applied while the robot is enabled.");
         }
+        if (cfgGiven != cfg) {
+            unverifiableConfig = true;
+        }
         cfg.apply(cfgGiven);
-        configureSparkMax(() -> motor.configure(cfg, ResetMode.kNoResetSafeParameters, PersistMode.kPersistParameters));
+        applyConfig();
     }
 
     /**
@@ -198,6 +322,7 @@ public class ManipSparkMax extends ManipMotor {
     @Override
     public void setVoltageCompensation(double nominalVoltage) {
         cfg.voltageCompensation(nominalVoltage);
+        expect(StoredParameter.VOLTAGE_COMPENSATION, nominalVoltage);
     }
 
     /**
@@ -209,6 +334,7 @@ public class ManipSparkMax extends ManipMotor {
     @Override
     public void setCurrentLimit(int currentLimit) {
         cfg.smartCurrentLimit(currentLimit);
+        expect(StoredParameter.SMART_CURRENT_LIMIT, currentLimit);
 
     }
 
@@ -221,6 +347,8 @@ public class ManipSparkMax extends ManipMotor {
     public void setLoopRampRate(double rampRate) {
         cfg.closedLoopRampRate(rampRate)
                 .openLoopRampRate(rampRate);
+        expect(StoredParameter.CLOSED_LOOP_RAMP_RATE, rampRate);
+        expect(StoredParameter.OPEN_LOOP_RAMP_RATE, rampRate);
 
     }
 
@@ -267,6 +395,10 @@ public class ManipSparkMax extends ManipMotor {
                 .closedLoopRampRate(rampRate)
                 .idleMode(isBrake ? IdleMode.kBrake : IdleMode.kCoast)
                 .inverted(isInverted);
+        expect(StoredParameter.SMART_CURRENT_LIMIT, stallCurrent);
+        expect(StoredParameter.CLOSED_LOOP_RAMP_RATE, rampRate);
+        expect(StoredParameter.IDLE_MODE, isBrake ? IdleMode.kBrake : IdleMode.kCoast);
+        expect(StoredParameter.INVERTED, isInverted);
         updateConfig(config);
 
     }
@@ -298,6 +430,13 @@ public class ManipSparkMax extends ManipMotor {
         cfg.closedLoop.pidf(config.p, config.i, config.d, config.f)
                 .iZone(config.iz)
                 .outputRange(config.output.min, config.output.max);
+        expect(StoredParameter.P, config.p);
+        expect(StoredParameter.I, config.i);
+        expect(StoredParameter.D, config.d);
+        expect(StoredParameter.FF, config.f);
+        expect(StoredParameter.I_ZONE, config.iz);
+        expect(StoredParameter.MIN_OUTPUT, config.output.min);
+        expect(StoredParameter.MAX_OUTPUT, config.output.max);
 
         rioPID.setPID(config.p, config.i, config.d);
     }
@@ -313,6 +452,9 @@ public class ManipSparkMax extends ManipMotor {
         cfg.closedLoop
                 .positionWrappingEnabled(true)
                 .positionWrappingInputRange(minInput, maxInput);
+        expect(StoredParameter.POSITION_WRAPPING_ENABLED, true);
+        expect(StoredParameter.POSITION_WRAPPING_MIN_INPUT, minInput);
+        expect(StoredParameter.POSITION_WRAPPING_MAX_INPUT, maxInput);
 
         rioPID.enableContinuousInput(minInput, maxInput);
     }
@@ -325,6 +467,7 @@ public class ManipSparkMax extends ManipMotor {
     @Override
     public void setMotorBrake(boolean isBrakeMode) {
         cfg.idleMode(isBrakeMode ? IdleMode.kBrake : IdleMode.kCoast);
+        expect(StoredParameter.IDLE_MODE, isBrakeMode ? IdleMode.kBrake : IdleMode.kCoast);
 
     }
 
@@ -336,19 +479,19 @@ public class ManipSparkMax extends ManipMotor {
     @Override
     public void setInverted(boolean inverted) {
         cfg.inverted(inverted);
+        expect(StoredParameter.INVERTED, inverted);
     }
 
     /**
-     * Save the configurations from flash to EEPROM.
+     * Save the configurations from flash to EEPROM. Always persists, whatever the stored config hash says.
      */
     @Override
     public void burnFlash() {
         if (!DriverStation.isDisabled()) {
             throw new RuntimeException("Config updates cannot be applied while the robot is Enabled!");
         }
-        configureSparkMax(() -> {
-            return motor.configure(cfg, ResetMode.kNoResetSafeParameters, PersistMode.kPersistParameters);
-        });
+        persistRequested = true;
+        applyConfig();
     }
 
     /**
@@ -362,13 +505,40 @@ public class ManipSparkMax extends ManipMotor {
         if (!DriverStation.isDisabled()) {
             throw new RuntimeException("Config updates cannot be applied while the robot is Enabled!");
         }
-        configureSparkMax(() ->
-                motor.configure(
-                        cfg.follow(leadMotor.getMotorID(),
-                                isInverted),
-                        ResetMode.kNoResetSafeParameters,
-                        PersistMode.kPersistParameters
-                ));
+        cfg.follow(leadMotor.getMotorID(), isInverted);
+        expect(StoredParameter.FOLLOWER_LEADER_ID, leadMotor.getMotorID());
+        expect(StoredParameter.FOLLOWER_INVERTED, isInverted);
+        applyConfig();
+    }
+
+    /**
+     * Set how often the {@link SparkMax} sends each status frame. The periods are part of the config and burned to
+     * flash with it, so the device keeps them through a brownout.
+     *
+     * @param profile {@link StatusProfile} matching what the mechanism reads from this motor.
+     */
+    @Override
+    public void setStatusProfile(StatusProfile profile) {
+        if (!DriverStation.isDisabled()) {
+            throw new RuntimeException("Config updates cannot be applied while the robot is Enabled!");
+        }
+        cfg.signals
+                .appliedOutputPeriodMs(profile.appliedOutputPeriodMs)
+                .faultsPeriodMs(profile.appliedOutputPeriodMs)
+                .primaryEncoderVelocityPeriodMs(profile.velocityPeriodMs)
+                .busVoltagePeriodMs(profile.velocityPeriodMs)
+                .outputCurrentPeriodMs(profile.velocityPeriodMs)
+                .motorTemperaturePeriodMs(profile.velocityPeriodMs)
+                .primaryEncoderPositionPeriodMs(profile.positionPeriodMs);
+        expect(StoredParameter.APPLIED_OUTPUT_PERIOD, profile.appliedOutputPeriodMs);
+        expect(StoredParameter.FAULTS_PERIOD, profile.appliedOutputPeriodMs);
+        expect(StoredParameter.VELOCITY_PERIOD, profile.velocityPeriodMs);
+        expect(StoredParameter.BUS_VOLTAGE_PERIOD, profile.velocityPeriodMs);
+        expect(StoredParameter.OUTPUT_CURRENT_PERIOD, profile.velocityPeriodMs);
+        expect(StoredParameter.MOTOR_TEMPERATURE_PERIOD, profile.velocityPeriodMs);
+        expect(StoredParameter.POSITION_PERIOD, profile.positionPeriodMs);
+        applyConfig();
+        statusProfile = profile;
     }
 
     /**
@@ -378,7 +548,7 @@ public class ManipSparkMax extends ManipMotor {
      */
     @Override
     public void set(double percentOutput) {
-        motor.set(percentOutput);
+        sendOutput(percentOutput, ControlType.kDutyCycle, 0);
     }
 
     /**
@@ -392,12 +562,7 @@ public class ManipSparkMax extends ManipMotor {
         if (useRioPID) {
             rioPID.calculate(setpoint);
         } else {
-            configureSparkMax(() ->
-                    pid.setReference(
-                            setpoint,
-                            sparkControlType,
-                            ClosedLoopSlot.kSlot0,
-                            feedforward));
+            sendOutput(setpoint, sparkControlType, feedforward);
         }
     }
 
@@ -411,20 +576,77 @@ public class ManipSparkMax extends ManipMotor {
         if (useRioPID) {
             rioPID.calculate(setpoint);
         } else {
-            configureSparkMax(() ->
-                    pid.setReference(
-                            setpoint,
-                            sparkControlType,
-                            ClosedLoopSlot.kSlot0));
+            sendOutput(setpoint, sparkControlType, 0);
         }
     }
 
     /**
-     * Stops the motor.
+     * Send an output once without waiting, skipping it if it matches the last sent output. A failed send is counted
+     * and left pending for {@link ManipSparkMax#update()} to retry next loop, unless a newer output is sent first.
+     *
+     * @param value       Setpoint in the units of the control type.
+     * @param controlType {@link ControlType} of the setpoint.
+     * @param feedforward Feedforward in volt-meter-per-second or kV.
+     */
+    private void sendOutput(double value, ControlType controlType, double feedforward) {
+        if (!outputChanged(controlType, value, feedforward)) {
+            outputPending = false;
+            return;
+        }
+        REVLibError error = pid.setReference(value, controlType, ClosedLoopSlot.kSlot0, feedforward);
+        outputPending = error != REVLibError.kOk;
+        if (outputPending) {
+            errorCount++;
+            pendingValue = value;
+            pendingControlType = controlType;
+            pendingFeedforward = feedforward;
+        } else {
+            outputSent(controlType, value, feedforward);
+        }
+    }
+
+    /**
+     * Retry the output that failed to send last loop and publish the error and saved frame counts.
+     */
+    @Override
+    protected void update() {
+        if (outputPending) {
+            sendOutput(pendingValue, pendingControlType, pendingFeedforward);
+        }
+        errorTelemetry.set(errorCount);
+        framesSavedTelemetry.set(getFramesSaved());
+    }
+
+    /**
+     * Read position, velocity and applied output into the snapshot, and the slow sensors when asked to.
+     *
+     * @param sensors  Snapshot to write to.
+     * @param readSlow Whether to also read bus voltage, current and temperature.
+     */
+    @Override
+    protected void readSensors(SensorSnapshot sensors, boolean readSlow) {
+        sensors.position = getPosition();
+        sensors.velocity = getVelocity();
+        sensors.appliedOutput = getAppliedOutput();
+        if (readSlow) {
+            sensors.busVoltage = motor.getBusVoltage();
+            sensors.current = motor.getOutputCurrent();
+            sensors.temperature = motor.getMotorTemperature();
+        }
+    }
+
+    @Override
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Stops the motor. Goes through the output cache like any other output so a later repeat of the previous
+     * setpoint is not skipped.
      */
     @Override
     public void stopMotor() {
-        motor.set(0.0);
+        sendOutput(0.0, ControlType.kDutyCycle, 0);
     }
 
     /**
@@ -454,7 +676,7 @@ public class ManipSparkMax extends ManipMotor {
      */
     @Override
     public void setVoltage(double voltage) {
-        motor.setVoltage(voltage);
+        sendOutput(voltage, ControlType.kVoltage, 0);
     }
 
     /**
@@ -464,7 +686,7 @@ public class ManipSparkMax extends ManipMotor {
      */
     @Override
     public void setVoltage(Voltage voltage) {
-        motor.setVoltage(voltage);
+        setVoltage(voltage.in(Volts));
     }
 
     /**
@@ -528,5 +750,45 @@ public class ManipSparkMax extends ManipMotor {
     @Override
     public void setPosition(double position) {
         configureSparkMax(() -> encoder.setPosition(position));
+        // Keep reads later in the loop consistent with the reset.
+        sensors.position = position;
+    }
+
+    /**
+     * Parameters {@link ManipSparkMax#cfg} can set, with how to read each back from the device.
+     */
+    private enum StoredParameter {
+        INVERTED(accessor -> accessor.getInverted()),
+        IDLE_MODE(accessor -> accessor.getIdleMode()),
+        SMART_CURRENT_LIMIT(accessor -> accessor.getSmartCurrentLimit()),
+        OPEN_LOOP_RAMP_RATE(accessor -> accessor.getOpenLoopRampRate()),
+        CLOSED_LOOP_RAMP_RATE(accessor -> accessor.getClosedLoopRampRate()),
+        VOLTAGE_COMPENSATION(accessor -> accessor.getVoltageCompensation()),
+        FOLLOWER_LEADER_ID(accessor -> accessor.getFollowerModeLeaderId()),
+        FOLLOWER_INVERTED(accessor -> accessor.getFollowerModeInverted()),
+        FEEDBACK_SENSOR(accessor -> accessor.closedLoop.getFeedbackSensor()),
+        P(accessor -> accessor.closedLoop.getP()),
+        I(accessor -> accessor.closedLoop.getI()),
+        D(accessor -> accessor.closedLoop.getD()),
+        FF(accessor -> accessor.closedLoop.getFF()),
+        I_ZONE(accessor -> accessor.closedLoop.getIZone()),
+        MIN_OUTPUT(accessor -> accessor.closedLoop.getMinOutput()),
+        MAX_OUTPUT(accessor -> accessor.closedLoop.getMaxOutput()),
+        POSITION_WRAPPING_ENABLED(accessor -> accessor.closedLoop.getPositionWrappingEnabled()),
+        POSITION_WRAPPING_MIN_INPUT(accessor -> accessor.closedLoop.getPositionWrappingMinInput()),
+        POSITION_WRAPPING_MAX_INPUT(accessor -> accessor.closedLoop.getPositionWrappingMaxInput()),
+        APPLIED_OUTPUT_PERIOD(accessor -> accessor.signals.getAppliedOutputPeriodMs()),
+        FAULTS_PERIOD(accessor -> accessor.signals.getFaultsPeriodMs()),
+        VELOCITY_PERIOD(accessor -> accessor.signals.getPrimaryEncoderVelocityPeriodMs()),
+        BUS_VOLTAGE_PERIOD(accessor -> accessor.signals.getBusVoltagePeriodMs()),
+        OUTPUT_CURRENT_PERIOD(accessor -> accessor.signals.getOutputCurrentPeriodMs()),
+        MOTOR_TEMPERATURE_PERIOD(accessor -> accessor.signals.getMotorTemperaturePeriodMs()),
+        POSITION_PERIOD(accessor -> accessor.signals.getPrimaryEncoderPositionPeriodMs());
+
+        private final Function<SparkMaxConfigAccessor, Object> reader;
+
+        StoredParameter(Function<SparkMaxConfigAccessor, Object> reader) {
+            this.reader = reader;
+        }
     }
 }
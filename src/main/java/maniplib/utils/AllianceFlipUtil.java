@@ -13,18 +13,35 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DriverStation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 public class AllianceFlipUtil {
 
+    private static final double kFieldLength = Units.inchesToMeters(690.876);
+    private static final double kFieldWidth = Units.inchesToMeters(317);
+
+    /**
+     * Cached result of the alliance check, refreshed by {@link AllianceFlipUtil#refresh()}. Volatile so threads other
+     * than the main loop read the latest value.
+     */
+    private static volatile boolean flip = readAlliance();
+    private static final List<Consumer<Boolean>> listeners = new ArrayList<>();
+
     public static double applyX(double x) {
-        return shouldFlip() ? Units.inchesToMeters(690.876) - x : x;
+        return shouldFlip() ? kFieldLength - x : x;
     }
 
     public static double applyY(double y) {
-        return shouldFlip() ? Units.inchesToMeters(317) - y : y;
+        return shouldFlip() ? kFieldWidth - y : y;
     }
 
     public static Translation2d apply(Translation2d translation) {
-        return new Translation2d(applyX(translation.getX()), applyY(translation.getY()));
+        return shouldFlip()
+                ? new Translation2d(kFieldLength - translation.getX(), kFieldWidth - translation.getY())
+                : translation;
     }
 
     public static Rotation2d apply(Rotation2d rotation) {
@@ -32,17 +49,89 @@ public class AllianceFlipUtil {
     }
 
     public static Pose2d apply(Pose2d pose) {
-        return shouldFlip()
-                ? new Pose2d(apply(pose.getTranslation()), apply(pose.getRotation()))
-                : pose;
+        return shouldFlip() ? flipAlways(pose) : pose;
+    }
+
+    /**
+     * Flip every pose for the current alliance, checking the alliance once.
+     *
+     * @param poses Poses to flip.
+     * @param out   Array to write the flipped poses to, may be the same array as poses.
+     * @return out
+     */
+    public static Pose2d[] apply(Pose2d[] poses, Pose2d[] out) {
+        if (shouldFlip()) {
+            return flipAlways(poses, out);
+        }
+        if (out != poses) {
+            System.arraycopy(poses, 0, out, 0, poses.length);
+        }
+        return out;
     }
 
     public static Pose2d flip(Pose2d pose) {
-        return new Pose2d(apply(pose.getTranslation()), apply(pose.getRotation()));
+        return apply(pose);
+    }
+
+    /**
+     * Flip a pose to the other alliance regardless of the current alliance.
+     *
+     * @param pose Pose to flip.
+     * @return The pose rotated about the center of the field.
+     */
+    public static Pose2d flipAlways(Pose2d pose) {
+        return new Pose2d(
+                kFieldLength - pose.getX(),
+                kFieldWidth - pose.getY(),
+                pose.getRotation().rotateBy(Rotation2d.kPi));
     }
 
+    /**
+     * Flip every pose to the other alliance regardless of the current alliance.
+     *
+     * @param poses Poses to flip.
+     * @param out   Array to write the flipped poses to, may be the same array as poses.
+     * @return out
+     */
+    public static Pose2d[] flipAlways(Pose2d[] poses, Pose2d[] out) {
+        for (int i = 0; i < poses.length; i++) {
+            out[i] = flipAlways(poses[i]);
+        }
+        return out;
+    }
+
+    /**
+     * @return True when on the red alliance, as of the last {@link AllianceFlipUtil#refresh()}.
+     */
     public static boolean shouldFlip() {
-        return (DriverStation.getAlliance().isPresent()
-                && DriverStation.getAlliance().get() == DriverStation.Alliance.Red);
+        return flip;
+    }
+
+    /**
+     * Re-read the alliance from the {@link DriverStation} and notify the listeners if it changed. Call once per loop
+     * from the main thread, right after the DriverStation data has been refreshed.
+     */
+    public static void refresh() {
+        boolean newFlip = readAlliance();
+        if (newFlip != flip) {
+            flip = newFlip;
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).accept(newFlip);
+            }
+        }
+    }
+
+    /**
+     * Register a listener to be called from {@link AllianceFlipUtil#refresh()} when the alliance changes.
+     *
+     * @param listener Called with the new value of {@link AllianceFlipUtil#shouldFlip()}.
+     */
+    public static void addListener(Consumer<Boolean> listener) {
+        listeners.add(listener);
+    }
+
+    private static boolean readAlliance() {
+        Optional<DriverStation.Alliance> alliance = DriverStation.getAlliance();
+        return alliance.isPresent() && alliance.get() == DriverStation.Alliance.Red;
     }
 }
@@ -0,0 +1,108 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ProfileToPoseInstanceTest {
+    private static final int kSteps = 150;
+    private static final double kPeriodSeconds = 0.02;
+    private static final TrapezoidProfile.Constraints kDriveConstraints =
+        new TrapezoidProfile.Constraints(0.7, 1.0);
+    private static final TrapezoidProfile.Constraints kThetaConstraints =
+        new TrapezoidProfile.Constraints(Units.degreesToRadians(720.0), 10.0);
+
+    private static final Pose2d kGoalA = new Pose2d(3.0, 4.0, Rotation2d.fromDegrees(60.0));
+    private static final Pose2d kStartA = new Pose2d(2.0, 3.0, Rotation2d.kZero);
+    private static final Pose2d kGoalB = new Pose2d(12.0, 2.0, Rotation2d.fromDegrees(-120.0));
+    private static final Pose2d kStartB = new Pose2d(13.5, 3.0, Rotation2d.fromDegrees(90.0));
+
+    @BeforeAll
+    static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @Test
+    void interleavedInstancesMatchSoloRuns() {
+        SimulatedAlignment soloA = new SimulatedAlignment(kStartA, kGoalA);
+        for (int i = 0; i < kSteps; i++) soloA.step();
+        SimulatedAlignment soloB = new SimulatedAlignment(kStartB, kGoalB);
+        for (int i = 0; i < kSteps; i++) soloB.step();
+
+        SimulatedAlignment interleavedA = new SimulatedAlignment(kStartA, kGoalA);
+        SimulatedAlignment interleavedB = new SimulatedAlignment(kStartB, kGoalB);
+        for (int i = 0; i < kSteps; i++) {
+            interleavedA.step();
+            interleavedB.step();
+        }
+
+        assertArrayEquals(soloA.history, interleavedA.history);
+        assertArrayEquals(soloB.history, interleavedB.history);
+        assertFalse(Arrays.equals(soloA.history, soloB.history));
+
+        // Both converge on their own goal rather than one pulled off by the other's profile.
+        assertTrue(interleavedA.command.getDriveError() < kStartA.getTranslation().getDistance(kGoalA.getTranslation()));
+        assertTrue(interleavedB.command.getDriveError() < kStartB.getTranslation().getDistance(kGoalB.getTranslation()));
+    }
+
+    @Test
+    void resetInstanceMatchesFreshInstance() {
+        SimulatedAlignment fresh = new SimulatedAlignment(kStartA, kGoalA);
+        for (int i = 0; i < kSteps; i++) fresh.step();
+
+        // Run an instance towards another goal first, then reuse it.
+        SimulatedAlignment reused = new SimulatedAlignment(kStartB, kGoalB);
+        for (int i = 0; i < kSteps / 2; i++) reused.step();
+        reused.restart(kStartA, kGoalA);
+        for (int i = 0; i < kSteps; i++) reused.step();
+
+        assertArrayEquals(fresh.history, reused.history);
+    }
+
+    /**
+     * One ProfileToPose driving an ideal robot that follows the commanded speeds exactly.
+     */
+    private static final class SimulatedAlignment {
+        private final ProfileToPose command;
+        private final ChassisSpeeds speeds = new ChassisSpeeds();
+        private final double[] history = new double[kSteps * 3];
+        private Pose2d pose;
+        private Pose2d goal;
+        private int index = 0;
+
+        SimulatedAlignment(Pose2d start, Pose2d goal) {
+            this.goal = goal;
+            command = new ProfileToPose(() -> this.goal, kDriveConstraints, kThetaConstraints, kPeriodSeconds);
+            restart(start, goal);
+        }
+
+        void restart(Pose2d start, Pose2d goal) {
+            this.pose = start;
+            this.goal = goal;
+            index = 0;
+            command.reset(start, goal, new ChassisSpeeds());
+        }
+
+        void step() {
+            command.step(pose, goal, speeds);
+            history[index++] = speeds.vxMetersPerSecond;
+            history[index++] = speeds.vyMetersPerSecond;
+            history[index++] = speeds.omegaRadiansPerSecond;
+            pose = pose.exp(new Twist2d(
+                speeds.vxMetersPerSecond * kPeriodSeconds,
+                speeds.vyMetersPerSecond * kPeriodSeconds,
+                speeds.omegaRadiansPerSecond * kPeriodSeconds));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
+import java.util.Random;
+import maniplib.utils.GeomUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ProfileToPoseTest {
+    private static final double kEpsilon = 1e-9;
+    private static final double kPeriodSeconds = 0.02;
+    private static final TrapezoidProfile.Constraints kDriveConstraints =
+        new TrapezoidProfile.Constraints(0.7, 1.0);
+    private static final TrapezoidProfile.Constraints kThetaConstraints =
+        new TrapezoidProfile.Constraints(Units.degreesToRadians(720.0), 10.0);
+
+    @BeforeAll
+    static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @Test
+    void primitiveMathMatchesPoseMath() {
+        Random random = new Random(6328);
+        ChassisSpeeds speeds = new ChassisSpeeds();
+        for (int trial = 0; trial < 500; trial++) {
+            Pose2d targetPose = randomPose(random, 1.0, 16.0, 1.0, 7.0);
+            Pose2d currentPose = new Pose2d(
+                targetPose.getX() + random.nextDouble() * 6.0 - 3.0,
+                targetPose.getY() + random.nextDouble() * 6.0 - 3.0,
+                new Rotation2d(random.nextDouble() * 2.0 * Math.PI - Math.PI));
+            ChassisSpeeds fieldVelocity = new ChassisSpeeds(
+                random.nextDouble() * 4.0 - 2.0,
+                random.nextDouble() * 4.0 - 2.0,
+                random.nextDouble() * 6.0 - 3.0);
+
+            ProfileToPose command =
+                new ProfileToPose(() -> targetPose, kDriveConstraints, kThetaConstraints, kPeriodSeconds);
+            PoseMathController reference = new PoseMathController();
+            command.reset(currentPose, targetPose, fieldVelocity);
+            reference.reset(currentPose, targetPose, fieldVelocity);
+
+            for (int step = 0; step < 50; step++) {
+                command.step(currentPose, targetPose, speeds);
+                ChassisSpeeds expected = reference.step(currentPose, targetPose);
+                assertEquals(expected.vxMetersPerSecond, speeds.vxMetersPerSecond, kEpsilon);
+                assertEquals(expected.vyMetersPerSecond, speeds.vyMetersPerSecond, kEpsilon);
+                assertEquals(expected.omegaRadiansPerSecond, speeds.omegaRadiansPerSecond, kEpsilon);
+                assertEquals(reference.driveErrorAbs, command.getDriveError(), kEpsilon);
+                assertEquals(reference.thetaErrorAbs, command.getThetaError(), kEpsilon);
+
+                // Follow the commanded speeds with some disturbance so the poses cover more than the ideal path.
+                currentPose = currentPose.exp(new Twist2d(
+                    speeds.vxMetersPerSecond * kPeriodSeconds + random.nextGaussian() * 0.01,
+                    speeds.vyMetersPerSecond * kPeriodSeconds + random.nextGaussian() * 0.01,
+                    speeds.omegaRadiansPerSecond * kPeriodSeconds + random.nextGaussian() * 0.01));
+            }
+        }
+    }
+
+    private static Pose2d randomPose(Random random, double minX, double maxX, double minY, double maxY) {
+        return new Pose2d(
+            minX + random.nextDouble() * (maxX - minX),
+            minY + random.nextDouble() * (maxY - minY),
+            new Rotation2d(random.nextDouble() * 2.0 * Math.PI - Math.PI));
+    }
+
+    /**
+     * The ProfileToPose controller math as it was written on Pose2d, Rotation2d and Transform2d, with no input
+     * feedforward.
+     */
+    private static final class PoseMathController {
+        private final ProfiledPIDController driveController = new ProfiledPIDController(
+            ProfileToPose.drivekP, 0, ProfileToPose.drivekD, kDriveConstraints, kPeriodSeconds);
+        private final ProfiledPIDController thetaController = new ProfiledPIDController(
+            ProfileToPose.thetakP, 0, ProfileToPose.thetakD, kThetaConstraints, kPeriodSeconds);
+        private Translation2d lastSetpointTranslation = Translation2d.kZero;
+        private double driveErrorAbs = 0.0;
+        private double thetaErrorAbs = 0.0;
+
+        PoseMathController() {
+            thetaController.enableContinuousInput(-Math.PI, Math.PI);
+        }
+
+        void reset(Pose2d currentPose, Pose2d targetPose, ChassisSpeeds fieldVelocity) {
+            Translation2d linearFieldVelocity =
+                new Translation2d(fieldVelocity.vxMetersPerSecond, fieldVelocity.vyMetersPerSecond);
+            driveController.reset(
+                currentPose.getTranslation().getDistance(targetPose.getTranslation()),
+                Math.min(
+                    0.0,
+                    -linearFieldVelocity
+                        .rotateBy(
+                            targetPose
+                                .getTranslation()
+                                .minus(currentPose.getTranslation())
+                                .getAngle()
+                                .unaryMinus())
+                        .getX()));
+            thetaController.reset(
+                currentPose.getRotation().getRadians(), fieldVelocity.omegaRadiansPerSecond);
+            lastSetpointTranslation = currentPose.getTranslation();
+        }
+
+        ChassisSpeeds step(Pose2d currentPose, Pose2d targetPose) {
+            double currentDistance = currentPose.getTranslation().getDistance(targetPose.getTranslation());
+            double ffScaler =
+                MathUtil.clamp(
+                    (currentDistance - 0.02) / (0.08 - 0.02),
+                    0.0,
+                    1.0);
+            driveErrorAbs = currentDistance;
+            driveController.reset(
+                lastSetpointTranslation.getDistance(targetPose.getTranslation()),
+                driveController.getSetpoint().velocity);
+            double driveVelocityScalar =
+                driveController.getSetpoint().velocity * ffScaler
+                    + driveController.calculate(driveErrorAbs, 0.0);
+            if (currentDistance < driveController.getPositionTolerance()) driveVelocityScalar = 0.0;
+            lastSetpointTranslation =
+                new Pose2d(
+                        targetPose.getTranslation(),
+                        new Rotation2d(
+                            Math.atan2(
+                                currentPose.getTranslation().getY() - targetPose.getTranslation().getY(),
+                                currentPose.getTranslation().getX() - targetPose.getTranslation().getX())))
+                    .transformBy(GeomUtil.toTransform2d(driveController.getSetpoint().position, 0.0))
+                    .getTranslation();
+
+            double thetaVelocity =
+                thetaController.getSetpoint().velocity * ffScaler
+                    + thetaController.calculate(
+                        currentPose.getRotation().getRadians(), targetPose.getRotation().getRadians());
+            thetaErrorAbs =
+                Math.abs(currentPose.getRotation().minus(targetPose.getRotation()).getRadians());
+            if (thetaErrorAbs < thetaController.getPositionTolerance()) thetaVelocity = 0.0;
+
+            Translation2d driveVelocity =
+                new Pose2d(
+                        Translation2d.kZero,
+                        new Rotation2d(
+                            Math.atan2(
+                                currentPose.getTranslation().getY() - targetPose.getTranslation().getY(),
+                                currentPose.getTranslation().getX() - targetPose.getTranslation().getX())))
+                    .transformBy(GeomUtil.toTransform2d(driveVelocityScalar, 0.0))
+                    .getTranslation();
+
+            return ChassisSpeeds.fromFieldRelativeSpeeds(
+                driveVelocity.getX(), driveVelocity.getY(), thetaVelocity, currentPose.getRotation());
+        }
+    }
+}